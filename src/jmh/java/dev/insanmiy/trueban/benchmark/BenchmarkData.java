@@ -0,0 +1,25 @@
+package dev.insanmiy.trueban.benchmark;
+
+import java.util.UUID;
+
+/**
+ * Deterministic identities shared by the benchmarks, so every run and every version sees the same data.
+ */
+final class BenchmarkData {
+
+    static final UUID IPBAN_UUID = new UUID(0, 0);
+
+    private BenchmarkData() {
+    }
+
+    static UUID playerUUID(int i) {
+        return new UUID(0x5452554542414EL, i + 1L);
+    }
+
+    // Spreads indexes over 10.0.0.0/8 and wraps into 100.64.0.0/10 past 2^24
+    static String address(int i) {
+        int host = i & 0xFFFFFF;
+        int first = i < (1 << 24) ? 10 : 100;
+        return first + "." + ((host >> 16) & 0xFF) + "." + ((host >> 8) & 0xFF) + "." + (host & 0xFF);
+    }
+}
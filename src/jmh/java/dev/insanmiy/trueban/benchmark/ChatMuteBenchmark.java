@@ -0,0 +1,89 @@
+package dev.insanmiy.trueban.benchmark;
+
+import dev.insanmiy.trueban.punishment.MuteState;
+import dev.insanmiy.trueban.punishment.Punishment;
+import dev.insanmiy.trueban.punishment.PunishmentScreen;
+import dev.insanmiy.trueban.punishment.PunishmentType;
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message mute check from PlayerChatListener: mute state lookup, expiry test and, when muted, the notice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChatMuteBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    @Param({"10000", "1000000"})
+    public int activeMutes;
+
+    private Map<UUID, MuteState> muteStates;
+    private UUID[] mutedPlayers;
+    private UUID[] cleanPlayers;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        muteStates = new ConcurrentHashMap<>();
+        long now = System.currentTimeMillis();
+        PunishmentScreen notice = PunishmentScreen.of("§cYou are muted for §f%duration%§c. Reason: §fBenchmark");
+
+        for (int i = 0; i < activeMutes; i++) {
+            UUID uuid = BenchmarkData.playerUUID(i);
+            Punishment mute = new Punishment(uuid, "player" + i, null, PunishmentType.TEMPMUTE,
+                    "Benchmark", "Console", now, now + TimeUnit.DAYS.toMillis(1), true);
+            muteStates.put(uuid, new MuteState(mute, notice));
+        }
+
+        mutedPlayers = new UUID[SAMPLES];
+        cleanPlayers = new UUID[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            mutedPlayers[i] = BenchmarkData.playerUUID((int) ((long) i * activeMutes / SAMPLES));
+            cleanPlayers[i] = BenchmarkData.playerUUID(activeMutes + i);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public boolean unmutedPlayer() {
+        MuteState mute = muteStates.get(cleanPlayers[next()]);
+        return mute != null && mute.isActive(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public boolean mutedPlayer() {
+        MuteState mute = muteStates.get(mutedPlayers[next()]);
+        return mute != null && mute.isActive(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public Component mutedNotice() {
+        MuteState mute = muteStates.get(mutedPlayers[next()]);
+        return mute.render("23h 59m");
+    }
+}
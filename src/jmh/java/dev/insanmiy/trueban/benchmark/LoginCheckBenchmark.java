@@ -0,0 +1,110 @@
+package dev.insanmiy.trueban.benchmark;
+
+import dev.insanmiy.trueban.punishment.Punishment;
+import dev.insanmiy.trueban.punishment.PunishmentIndex;
+import dev.insanmiy.trueban.punishment.PunishmentScreen;
+import dev.insanmiy.trueban.punishment.PunishmentType;
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login ban check through PunishmentIndex.findLoginVerdict, the lookup behind PunishmentManager.getLoginVerdict:
+ * player ban lookup, then the most specific IP ban.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoginCheckBenchmark {
+
+    private static final int SAMPLES = 4096;
+
+    @Param({"10000", "1000000"})
+    public int activeBans;
+
+    private PunishmentIndex index;
+    private UUID[] bannedPlayers;
+    private UUID[] cleanPlayers;
+    private String[] bannedAddresses;
+    private String[] cleanAddresses;
+    private PunishmentScreen tempbanScreen;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        index = new PunishmentIndex();
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < activeBans; i++) {
+            UUID uuid = BenchmarkData.playerUUID(i);
+            index.add(new Punishment(uuid, "player" + i, BenchmarkData.address(i), PunishmentType.BAN,
+                    "Benchmark", "Console", now - i, -1, true));
+        }
+
+        int ipBans = Math.max(1, activeBans / 10);
+        for (int i = 0; i < ipBans; i++) {
+            index.add(new Punishment(BenchmarkData.IPBAN_UUID, "IP_BAN", BenchmarkData.address(i), PunishmentType.IPBAN,
+                    "Benchmark", "Console", now - i, -1, true));
+        }
+
+        bannedPlayers = new UUID[SAMPLES];
+        cleanPlayers = new UUID[SAMPLES];
+        bannedAddresses = new String[SAMPLES];
+        cleanAddresses = new String[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            bannedPlayers[i] = BenchmarkData.playerUUID((int) ((long) i * activeBans / SAMPLES));
+            cleanPlayers[i] = BenchmarkData.playerUUID(activeBans + i);
+            bannedAddresses[i] = BenchmarkData.address((int) ((long) i * ipBans / SAMPLES));
+            cleanAddresses[i] = BenchmarkData.address(activeBans + i);
+        }
+
+        tempbanScreen = PunishmentScreen.of("§7You have been §ctemporarily banned§7.\n§7Reason: §fBenchmark\n§7Time remaining: §c%duration%\n§7Appeal at example.org");
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return cursor;
+    }
+
+    private Punishment verdict(UUID playerUUID, String ipAddress) {
+        return index.findLoginVerdict(playerUUID, ipAddress);
+    }
+
+    @Benchmark
+    public Punishment bannedPlayer() {
+        int i = next();
+        return verdict(bannedPlayers[i], cleanAddresses[i]);
+    }
+
+    @Benchmark
+    public Punishment ipBannedAddress() {
+        int i = next();
+        return verdict(cleanPlayers[i], bannedAddresses[i]);
+    }
+
+    @Benchmark
+    public Punishment cleanPlayer() {
+        int i = next();
+        return verdict(cleanPlayers[i], cleanAddresses[i]);
+    }
+
+    @Benchmark
+    public Component tempbanScreen() {
+        return tempbanScreen.render("3 days 4 hours");
+    }
+}
@@ -0,0 +1,69 @@
+package dev.insanmiy.trueban.benchmark;
+
+import dev.insanmiy.trueban.config.MessageManager;
+import dev.insanmiy.trueban.punishment.PunishmentManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message rendering from the bundled messages.yml, and duration parsing for temporary punishments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+    private MessageManager messages;
+
+    @Setup
+    public void setup() throws IOException {
+        messages = new MessageManager(null);
+        try (InputStream in = MessageBenchmark.class.getClassLoader().getResourceAsStream("messages.yml")) {
+            if (in == null) {
+                throw new IOException("messages.yml is not on the classpath");
+            }
+            messages.loadMessages((Map<String, Object>) new Yaml().load(in));
+        }
+    }
+
+    @Benchmark
+    public String tempbanMessage() {
+        // Callers build a fresh placeholder map per message, so that is part of the measured cost
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("player", "Griefer123");
+        placeholders.put("uuid", "8667ba71-b85a-4004-af54-457a9734eed7");
+        placeholders.put("reason", "Griefing spawn");
+        placeholders.put("operator", "Moderator");
+        placeholders.put("duration", "6 days 23 hours");
+        placeholders.put("expiration", "2025-01-01 12:00:00");
+        return messages.getMessage("ban.tempban_message", placeholders);
+    }
+
+    @Benchmark
+    public String staticMessage() {
+        return messages.getMessage("commands.no-permission");
+    }
+
+    @Benchmark
+    public long parseDuration() {
+        return PunishmentManager.parseDuration("1d12h30m15s");
+    }
+}
@@ -0,0 +1,151 @@
+package dev.insanmiy.trueban.benchmark;
+
+import dev.insanmiy.trueban.config.ConfigManager;
+import dev.insanmiy.trueban.punishment.Punishment;
+import dev.insanmiy.trueban.punishment.PunishmentType;
+import dev.insanmiy.trueban.storage.HistoryCursor;
+import dev.insanmiy.trueban.storage.SqliteStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Read latency and write throughput of SqliteStorage against a temporary database holding {@code rows} punishments.
+ * The database is filled through the storage's own write path once per fork, which takes a while at 10M rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqliteStorageBenchmark {
+
+    private static final int PUNISHMENTS_PER_PLAYER = 5;
+    private static final int FILL_CHUNK = 50_000;
+    private static final int WRITE_BATCH = 500;
+    private static final int SAMPLES = 4096;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private Path directory;
+    private SqliteStorage storage;
+    private UUID[] players;
+    private long nextCreatedAt;
+    private int writeSequence;
+    private int cursor;
+
+    @Setup
+    public void setup() throws Exception {
+        directory = Files.createTempDirectory("trueban-bench");
+
+        ConfigManager config = new ConfigManager(null);
+        config.loadConfig(Map.of(
+                "sqlite", Map.of("file", "benchmark.db"),
+                "settings", Map.of("write-batch-size", WRITE_BATCH, "write-flush-interval-millis", 1)
+        ));
+        storage = new SqliteStorage(Logger.getLogger("TrueBan-Benchmark"), directory.toFile(), config);
+
+        int playerCount = Math.max(1, rows / PUNISHMENTS_PER_PLAYER);
+        long base = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(365);
+        List<CompletableFuture<Void>> pending = new ArrayList<>(FILL_CHUNK);
+        for (int i = 0; i < rows; i++) {
+            pending.add(storage.savePunishment(row(i, playerCount, base)));
+            if (pending.size() == FILL_CHUNK) {
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+                pending.clear();
+            }
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        nextCreatedAt = base + rows;
+
+        players = new UUID[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            players[i] = BenchmarkData.playerUUID((int) ((long) i * playerCount / SAMPLES));
+        }
+    }
+
+    // Most history is expired; every tenth row is still active, and one in fifty is an IP ban
+    private static Punishment row(int i, int playerCount, long base) {
+        int player = i % playerCount;
+        long createdAt = base + i;
+        boolean active = i % 10 == 0;
+
+        if (i % 50 == 0) {
+            return new Punishment(BenchmarkData.IPBAN_UUID, "IP_BAN", BenchmarkData.address(player), PunishmentType.IPBAN,
+                    "Benchmark", "Console", createdAt, -1, active);
+        }
+
+        PunishmentType type = switch (i % 4) {
+            case 0 -> PunishmentType.TEMPBAN;
+            case 1 -> PunishmentType.TEMPMUTE;
+            case 2 -> PunishmentType.BAN;
+            default -> PunishmentType.KICK;
+        };
+        long expiresAt = type.isTemporary() ? createdAt + TimeUnit.DAYS.toMillis(active ? 730 : 1) : -1;
+        return new Punishment(BenchmarkData.playerUUID(player), "player" + player, BenchmarkData.address(player), type,
+                "Benchmark", "Console", createdAt, expiresAt, active);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        storage.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public List<Punishment> activePunishments() {
+        return storage.getActivePunishments(players[next()]).join();
+    }
+
+    @Benchmark
+    public List<Punishment> historyFirstPage() {
+        return storage.getPunishmentHistoryPage(players[next()], HistoryCursor.FIRST, 11).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(WRITE_BATCH)
+    public void writeBatch() {
+        CompletableFuture<?>[] writes = new CompletableFuture[WRITE_BATCH];
+        for (int i = 0; i < WRITE_BATCH; i++) {
+            UUID uuid = new UUID(0x5752495445L, writeSequence++);
+            writes[i] = storage.savePunishment(new Punishment(uuid, "writer", null, PunishmentType.TEMPMUTE,
+                    "Benchmark", "Console", nextCreatedAt++, nextCreatedAt + 60_000, true));
+        }
+        CompletableFuture.allOf(writes).join();
+    }
+}
@@ -0,0 +1,179 @@
+package dev.insanmiy.trueban.loadtest;
+
+import dev.insanmiy.trueban.punishment.Punishment;
+import dev.insanmiy.trueban.punishment.PunishmentType;
+import dev.insanmiy.trueban.storage.StorageManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a punishment history shaped like a real server's: a Zipf-skewed population where a few repeat
+ * offenders collect most punishments, a mix of kicks, mutes and bans, IP bans on offenders' addresses, and
+ * temporary punishments of which most have long expired. Generation is deterministic for a given seed.
+ */
+final class DatasetGenerator {
+
+    private static final String[] REASONS = {"Spamming", "Hacking", "Griefing", "Toxicity", "Advertising", "Ban evasion"};
+    private static final String[] OPERATORS = {"Console", "ModAlice", "ModBob", "AdminCarol"};
+    private static final long[] TEMP_DURATIONS = {
+            TimeUnit.MINUTES.toMillis(30), TimeUnit.HOURS.toMillis(2), TimeUnit.DAYS.toMillis(1),
+            TimeUnit.DAYS.toMillis(7), TimeUnit.DAYS.toMillis(30)
+    };
+    private static final long HISTORY_SPAN_MILLIS = TimeUnit.DAYS.toMillis(3 * 365);
+    private static final int FILL_CHUNK = 20_000;
+
+    private final int players;
+    private final int rows;
+    private final long seed;
+    private final long startMillis;
+    private final long stepMillis;
+    private final ZipfSampler offenders;
+
+    DatasetGenerator(int players, int rows, double skew, long seed, long now) {
+        this.players = players;
+        this.rows = rows;
+        this.seed = seed;
+        this.startMillis = now - HISTORY_SPAN_MILLIS;
+        // Every row gets its own timestamp, which keeps (player_uuid, created_at) unique
+        this.stepMillis = Math.max(1, HISTORY_SPAN_MILLIS / Math.max(1, rows));
+        this.offenders = new ZipfSampler(players, skew);
+    }
+
+    int getPlayers() {
+        return players;
+    }
+
+    /**
+     * The first timestamp after the generated history, for punishments written during the run.
+     */
+    long getEndMillis() {
+        return startMillis + (long) rows * stepMillis;
+    }
+
+    ZipfSampler getOffenders() {
+        return offenders;
+    }
+
+    static UUID playerUUID(int player) {
+        return new UUID(0x4C4F4144L, player + 1L);
+    }
+
+    static String playerName(int player) {
+        return "player" + player;
+    }
+
+    // One address per player, spread over 10.0.0.0/8
+    static String address(int player) {
+        return "10." + ((player >> 16) & 0xFF) + "." + ((player >> 8) & 0xFF) + "." + (player & 0xFF);
+    }
+
+    /**
+     * Records every player and writes all rows through the storage's regular write path, waiting for each chunk.
+     */
+    void fill(StorageManager storage, long now) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(FILL_CHUNK);
+        for (int player = 0; player < players; player++) {
+            pending.add(storage.recordPlayer(playerUUID(player), playerName(player), address(player),
+                    startMillis + (long) player * stepMillis));
+            if (pending.size() == FILL_CHUNK) {
+                join(pending);
+            }
+        }
+        join(pending);
+
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < rows; i++) {
+            pending.add(storage.savePunishment(row(random, startMillis + (long) i * stepMillis, now)));
+            if (pending.size() == FILL_CHUNK) {
+                join(pending);
+            }
+        }
+        join(pending);
+    }
+
+    Punishment row(SplittableRandom random, long createdAt, long now) {
+        int player = offenders.sample(random);
+        String reason = REASONS[random.nextInt(REASONS.length)];
+        String operator = OPERATORS[random.nextInt(OPERATORS.length)];
+        PunishmentType type = type(random.nextInt(100));
+
+        if (type == PunishmentType.IPBAN) {
+            // Half of all IP bans have since been lifted
+            return new Punishment(new UUID(0, 0), "IP_BAN", address(player), type, reason, operator,
+                    createdAt, -1, random.nextBoolean());
+        }
+
+        long expiresAt = -1;
+        boolean active = type != PunishmentType.KICK;
+        if (type.isTemporary()) {
+            expiresAt = createdAt + TEMP_DURATIONS[random.nextInt(TEMP_DURATIONS.length)];
+            active = expiresAt > now;
+        } else if (active) {
+            // Most permanent punishments are eventually appealed
+            active = random.nextInt(4) == 0;
+        }
+        return new Punishment(playerUUID(player), playerName(player), address(player), type, reason, operator,
+                createdAt, expiresAt, active);
+    }
+
+    private static PunishmentType type(int roll) {
+        if (roll < 30) {
+            return PunishmentType.KICK;
+        } else if (roll < 55) {
+            return PunishmentType.TEMPMUTE;
+        } else if (roll < 62) {
+            return PunishmentType.MUTE;
+        } else if (roll < 85) {
+            return PunishmentType.TEMPBAN;
+        } else if (roll < 95) {
+            return PunishmentType.BAN;
+        }
+        return PunishmentType.IPBAN;
+    }
+
+    private static void join(List<CompletableFuture<Void>> pending) {
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        pending.clear();
+    }
+
+    /**
+     * Samples player indexes with probability proportional to {@code 1 / (rank + 1)^skew}, so player 0 is the
+     * worst offender. A skew of 0 is uniform.
+     */
+    static final class ZipfSampler {
+
+        private final double[] cumulative;
+
+        ZipfSampler(int size, double skew) {
+            cumulative = new double[size];
+            double sum = 0;
+            for (int i = 0; i < size; i++) {
+                sum += 1 / Math.pow(i + 1, skew);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < size; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int sample(SplittableRandom random) {
+            double target = random.nextDouble();
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cumulative[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package dev.insanmiy.trueban.loadtest;
+
+import dev.insanmiy.trueban.config.ConfigManager;
+import dev.insanmiy.trueban.punishment.Punishment;
+import dev.insanmiy.trueban.punishment.PunishmentManager;
+import dev.insanmiy.trueban.storage.HistoryCursor;
+import dev.insanmiy.trueban.storage.MysqlStorage;
+import dev.insanmiy.trueban.storage.SqliteStorage;
+import dev.insanmiy.trueban.storage.StorageManager;
+import dev.insanmiy.trueban.util.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+
+/**
+ * Standalone storage load test; needs no server. Generates a synthetic punishment history into SQLite or MySQL
+ * through the regular {@link StorageManager} implementations, then replays a weighted mix of lookups and writes
+ * from several threads and reports throughput and latency percentiles per operation.
+ * <p>
+ * Any MySQL-compatible server works for the MySQL run, such as a local MariaDB or MySQL container. Run
+ * without arguments or with {@code --help} for the options.
+ */
+public final class LoadTest {
+
+    private static final String USAGE = """
+            Usage: LoadTest [options]
+              --backend sqlite|mysql     storage to test (default sqlite)
+              --dir <path>               SQLite data folder (default: a temporary folder, deleted afterwards)
+              --mysql-host <host>        (default 127.0.0.1)
+              --mysql-port <port>        (default 3306)
+              --mysql-database <name>    (default trueban_loadtest)
+              --mysql-user <user>        (default root)
+              --mysql-password <pass>    (default empty)
+              --players <n>              distinct players, at most 16777216 (default 100000)
+              --rows <n>                 punishments to generate (default 1000000)
+              --skew <s>                 Zipf exponent for repeat offenders, 0 = uniform (default 1.1)
+              --seed <n>                 dataset and workload seed (default 42)
+              --reuse                    keep existing rows instead of clearing and generating
+              --threads <n>              concurrent clients (default 8)
+              --warmup <seconds>         unmeasured run before measuring (default 10)
+              --duration <seconds>       measured run (default 30)
+              --mix <op=weight,...>      workload mix over login, active, history, name, write
+                                         (default login=40,active=10,history=20,name=15,write=15)
+            """;
+
+    private static final String DEFAULT_MIX = "login=40,active=10,history=20,name=15,write=15";
+
+    private enum Operation {
+        LOGIN, ACTIVE, HISTORY, NAME, WRITE
+    }
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options;
+        try {
+            options = parseOptions(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.containsKey("help")) {
+            System.out.print(USAGE);
+            return;
+        }
+
+        try {
+            run(options);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+    }
+
+    private static void run(Map<String, String> options) throws Exception {
+        String backend = options.getOrDefault("backend", "sqlite").toLowerCase(Locale.ROOT);
+        int players = intOption(options, "players", 100_000, 1, 1 << 24);
+        int rows = intOption(options, "rows", 1_000_000, 0, Integer.MAX_VALUE);
+        double skew = Double.parseDouble(options.getOrDefault("skew", "1.1"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        int threads = intOption(options, "threads", 8, 1, 1024);
+        int warmupSeconds = intOption(options, "warmup", 10, 0, Integer.MAX_VALUE);
+        int durationSeconds = intOption(options, "duration", 30, 1, Integer.MAX_VALUE);
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        Logger logger = Logger.getLogger("TrueBan-LoadTest");
+        ConfigManager config = new ConfigManager(null);
+        Path temporary = null;
+        StorageManager storage;
+
+        if (backend.equals("sqlite")) {
+            Path directory;
+            if (options.containsKey("dir")) {
+                directory = Files.createDirectories(Path.of(options.get("dir")));
+            } else {
+                directory = temporary = Files.createTempDirectory("trueban-loadtest");
+            }
+            config.loadConfig(Map.of(
+                    "sqlite", Map.of("file", "loadtest.db", "read-connections", Math.min(threads, 8))
+            ));
+            storage = new SqliteStorage(logger, directory.toFile(), config);
+            System.out.println("SQLite database: " + directory.resolve("loadtest.db"));
+        } else if (backend.equals("mysql")) {
+            Map<String, Object> mysql = new HashMap<>();
+            mysql.put("host", options.getOrDefault("mysql-host", "127.0.0.1"));
+            mysql.put("port", intOption(options, "mysql-port", 3306, 1, 65535));
+            mysql.put("database", options.getOrDefault("mysql-database", "trueban_loadtest"));
+            mysql.put("username", options.getOrDefault("mysql-user", "root"));
+            mysql.put("password", options.getOrDefault("mysql-password", ""));
+            mysql.put("pool", Map.of("max-size", threads + 2, "min-idle", 2));
+            config.loadConfig(Map.of("mysql", mysql));
+            storage = new MysqlStorage(logger, config);
+            System.out.println("MySQL database: " + mysql.get("host") + ":" + mysql.get("port") + "/" + mysql.get("database"));
+        } else {
+            throw new IllegalArgumentException("Unknown backend: " + backend);
+        }
+
+        long now = System.currentTimeMillis();
+        DatasetGenerator dataset = new DatasetGenerator(players, rows, skew, seed, now);
+
+        try {
+            if (!options.containsKey("reuse")) {
+                System.out.println("Generating " + rows + " punishments for " + players + " players...");
+                long started = System.nanoTime();
+                storage.clearAll().join();
+                dataset.fill(storage, now);
+                double seconds = (System.nanoTime() - started) / 1e9;
+                System.out.printf(Locale.ROOT, "Generated in %.1f s (%.0f rows/s)%n", seconds, rows / seconds);
+            }
+
+            System.out.println("Running " + threads + " clients: " + warmupSeconds + " s warmup, "
+                    + durationSeconds + " s measured, mix " + mix);
+            Map<Operation, LatencyHistogram> histograms = replay(storage, dataset, mix, seed, threads,
+                    warmupSeconds, durationSeconds);
+            report(histograms, durationSeconds);
+        } finally {
+            storage.close();
+            if (temporary != null) {
+                deleteRecursively(temporary);
+            }
+        }
+    }
+
+    private static Map<Operation, LatencyHistogram> replay(StorageManager storage, DatasetGenerator dataset,
+                                                           Map<Operation, Integer> mix, long seed, int threads,
+                                                           int warmupSeconds, int durationSeconds) throws InterruptedException {
+        Map<Operation, LatencyHistogram> histograms = new LinkedHashMap<>();
+        Map<Operation, LongAdder> errors = new HashMap<>();
+        for (Operation operation : mix.keySet()) {
+            histograms.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+        }
+
+        Operation[] operations = mix.keySet().toArray(new Operation[0]);
+        int[] cumulative = new int[operations.length];
+        int totalWeight = 0;
+        for (int i = 0; i < operations.length; i++) {
+            totalWeight += mix.get(operations[i]);
+            cumulative[i] = totalWeight;
+        }
+        int weightSum = totalWeight;
+
+        AtomicLong writeClock = new AtomicLong(dataset.getEndMillis());
+        long measureStart = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long deadline = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        SplittableRandom root = new SplittableRandom(seed ^ 0x5DEECE66DL);
+
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            SplittableRandom random = root.split();
+            Thread worker = new Thread(() -> {
+                long started;
+                while ((started = System.nanoTime()) < deadline) {
+                    int roll = random.nextInt(weightSum);
+                    int pick = 0;
+                    while (cumulative[pick] <= roll) {
+                        pick++;
+                    }
+                    Operation operation = operations[pick];
+
+                    try {
+                        execute(storage, dataset, operation, random, writeClock);
+                    } catch (RuntimeException e) {
+                        errors.get(operation).increment();
+                        continue;
+                    }
+                    if (started >= measureStart) {
+                        histograms.get(operation).record(System.nanoTime() - started);
+                    }
+                }
+            }, "TrueBan-LoadTest-" + (t + 1));
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        for (Map.Entry<Operation, LongAdder> entry : errors.entrySet()) {
+            if (entry.getValue().sum() > 0) {
+                System.out.println(entry.getKey().name().toLowerCase(Locale.ROOT) + ": " + entry.getValue().sum() + " failed");
+            }
+        }
+        return histograms;
+    }
+
+    // Logins and name lookups come from the whole population; the rest follow the repeat offenders
+    private static void execute(StorageManager storage, DatasetGenerator dataset, Operation operation,
+                                SplittableRandom random, AtomicLong writeClock) {
+        switch (operation) {
+            // Ban checks are answered from memory, so recording the player is all the storage work a login does
+            case LOGIN -> {
+                int player = random.nextInt(dataset.getPlayers());
+                storage.recordPlayer(DatasetGenerator.playerUUID(player), DatasetGenerator.playerName(player),
+                        DatasetGenerator.address(player), System.currentTimeMillis()).join();
+            }
+            case ACTIVE -> storage.getActivePunishments(
+                    DatasetGenerator.playerUUID(dataset.getOffenders().sample(random))).join();
+            case HISTORY -> storage.getPunishmentHistoryPage(
+                    DatasetGenerator.playerUUID(dataset.getOffenders().sample(random)),
+                    HistoryCursor.FIRST, PunishmentManager.HISTORY_PAGE_SIZE + 1).join();
+            case NAME -> storage.getOfflineUUID(
+                    DatasetGenerator.playerName(random.nextInt(dataset.getPlayers()))).join();
+            case WRITE -> {
+                Punishment punishment = dataset.row(random, writeClock.getAndIncrement(), System.currentTimeMillis());
+                storage.savePunishment(punishment).join();
+            }
+        }
+    }
+
+    private static void report(Map<Operation, LatencyHistogram> histograms, int durationSeconds) {
+        System.out.printf(Locale.ROOT, "%n%-10s %10s %10s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "ops/s", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long total = 0;
+        for (Map.Entry<Operation, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            total += histogram.getCount();
+            System.out.printf(Locale.ROOT, "%-10s %10d %10.0f %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    entry.getKey().name().toLowerCase(Locale.ROOT),
+                    histogram.getCount(),
+                    (double) histogram.getCount() / durationSeconds,
+                    histogram.getMeanNanos() / 1e6,
+                    histogram.getPercentileNanos(50) / 1e6,
+                    histogram.getPercentileNanos(90) / 1e6,
+                    histogram.getPercentileNanos(99) / 1e6,
+                    histogram.getPercentileNanos(99.9) / 1e6,
+                    histogram.getMaxNanos() / 1e6);
+        }
+        System.out.printf(Locale.ROOT, "%-10s %10d %10.0f%n", "total", total, (double) total / durationSeconds);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+
+            String name = arg.substring(2);
+            if (name.equals("help") || name.equals("reuse")) {
+                options.put(name, "true");
+            } else if (i + 1 < args.length) {
+                options.put(name, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+        return options;
+    }
+
+    private static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] pair = part.trim().split("=", 2);
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Invalid mix entry: " + part);
+            }
+
+            Operation operation;
+            try {
+                operation = Operation.valueOf(pair[0].trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown operation in mix: " + pair[0]);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                mix.put(operation, weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+        }
+        return mix;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue, int min, int max) {
+        String value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException("--" + name + " must be between " + min + " and " + max);
+        }
+        return parsed;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+}
@@ -1,14 +1,21 @@
 package dev.insanmiy.trueban;
 
+import dev.insanmiy.trueban.blocklist.BlocklistManager;
 import dev.insanmiy.trueban.config.ConfigManager;
 import dev.insanmiy.trueban.config.MessageManager;
+import dev.insanmiy.trueban.metrics.MetricsServer;
+import dev.insanmiy.trueban.metrics.PluginMetrics;
 import dev.insanmiy.trueban.punishment.PunishmentManager;
+import dev.insanmiy.trueban.storage.InstrumentedStorage;
 import dev.insanmiy.trueban.storage.StorageManager;
+import dev.insanmiy.trueban.storage.StorageMetrics;
 import dev.insanmiy.trueban.storage.SqliteStorage;
 import dev.insanmiy.trueban.storage.MysqlStorage;
 import dev.insanmiy.trueban.commands.*;
 import dev.insanmiy.trueban.listeners.PlayerLoginListener;
 import dev.insanmiy.trueban.listeners.PlayerChatListener;
+import dev.insanmiy.trueban.listeners.PlayerJoinListener;
+import dev.insanmiy.trueban.listeners.TabCompleteListener;
 import org.bukkit.Bukkit;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -24,7 +31,10 @@ public class TrueBan extends JavaPlugin {
     private MessageManager messageManager;
     private StorageManager storageManager;
     private PunishmentManager punishmentManager;
+    private BlocklistManager blocklistManager;
     private ScheduledExecutorService expirationExecutor;
+    private final PluginMetrics metrics = new PluginMetrics();
+    private MetricsServer metricsServer;
 
     @Override
     public void onLoad() {
@@ -47,20 +57,54 @@ public class TrueBan extends JavaPlugin {
             messageManager.loadMessages();
             getLogger().info("✓ Messages loaded");
 
-            this.storageManager = initializeStorage();
+            StorageManager backend = initializeStorage();
+            this.storageManager = new InstrumentedStorage(backend);
             getLogger().info("✓ Storage system initialized (" + configManager.getStorageType() + ")");
 
-            this.punishmentManager = new PunishmentManager(this, storageManager);
+            this.expirationExecutor = Executors.newScheduledThreadPool(configManager.getAsyncThreads(), r -> {
+                Thread t = new Thread(r, "TrueBan-Expiration");
+                t.setDaemon(true);
+                return t;
+            });
+
+            this.punishmentManager = new PunishmentManager(this, storageManager, expirationExecutor);
             getLogger().info("✓ Punishment manager initialized");
 
+            // Enforcement reads only the index, so a failed load aborts startup instead of enforcing nothing
+            int loaded = punishmentManager.loadActivePunishments().join();
+            getLogger().info("✓ Loaded " + loaded + " active punishments");
+
+            punishmentManager.loadKnownPlayerNames().thenAccept(names ->
+                    getLogger().info("✓ Indexed " + names + " known player names for tab completion"));
+
+            this.blocklistManager = new BlocklistManager(this);
+            blocklistManager.loadAll();
+            getLogger().info("✓ Blocklists loading from " + blocklistManager.getDirectory());
+
             registerCommands();
             getLogger().info("✓ Commands registered");
 
             registerListeners();
             getLogger().info("✓ Listeners registered");
 
-            scheduleExpirationTask();
-            getLogger().info("✓ Expiration task scheduled");
+            getLogger().info("✓ Expiration scheduler tracking " + punishmentManager.getPendingExpirationCount() + " temporary punishments");
+
+            scheduleExpirationSweep();
+            getLogger().info("✓ Expiration sweep scheduled");
+
+            if (backend instanceof MysqlStorage && configManager.getSyncIntervalSeconds() > 0) {
+                scheduleChangeSync();
+                getLogger().info("✓ Syncing punishments from other servers every " + configManager.getSyncIntervalSeconds() + "s");
+            }
+
+            if (configManager.getBoolean("metrics.enabled", false)) {
+                startMetricsServer();
+            }
+
+            if (configManager.getStatsLogIntervalMinutes() > 0) {
+                scheduleStatsLog();
+                getLogger().info("✓ Logging storage statistics every " + configManager.getStatsLogIntervalMinutes() + "m");
+            }
 
             getLogger().info("================================");
             getLogger().info("TrueBan successfully enabled!");
@@ -89,6 +133,14 @@ public class TrueBan extends JavaPlugin {
             }
         }
 
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+
+        if (blocklistManager != null) {
+            blocklistManager.close();
+        }
+
         if (storageManager != null) {
             storageManager.close();
         }
@@ -119,6 +171,7 @@ public class TrueBan extends JavaPlugin {
         Objects.requireNonNull(getCommand("tempmute")).setExecutor(new TempmuteCommand(this));
         Objects.requireNonNull(getCommand("unmute")).setExecutor(new UnmuteCommand(this));
         Objects.requireNonNull(getCommand("history")).setExecutor(new HistoryCommand(this));
+        Objects.requireNonNull(getCommand("trueban")).setExecutor(new TrueBanCommand(this));
 
         Objects.requireNonNull(getCommand("ban")).setTabCompleter(new PlayerListTabCompleter(this));
         Objects.requireNonNull(getCommand("tempban")).setTabCompleter(new PlayerListTabCompleter(this));
@@ -134,18 +187,22 @@ public class TrueBan extends JavaPlugin {
     private void registerListeners() {
         getServer().getPluginManager().registerEvents(new PlayerLoginListener(this), this);
         getServer().getPluginManager().registerEvents(new PlayerChatListener(this), this);
+        getServer().getPluginManager().registerEvents(new PlayerJoinListener(this), this);
+        getServer().getPluginManager().registerEvents(new TabCompleteListener(this), this);
     }
 
-    private void scheduleExpirationTask() {
-        expirationExecutor = Executors.newScheduledThreadPool(configManager.getAsyncThreads());
+    private void scheduleExpirationSweep() {
         long interval = configManager.getExpirationCheckInterval();
 
-        expirationExecutor.scheduleAtFixedRate(
+        expirationExecutor.scheduleWithFixedDelay(
                 () -> {
                     try {
-                        punishmentManager.expireActivePunishments();
+                        int expired = punishmentManager.sweepExpiredPunishments().join();
+                        if (expired > 0) {
+                            getLogger().info("Expired " + expired + " punishments in storage");
+                        }
                     } catch (Exception e) {
-                        getLogger().severe("Error during punishment expiration check: " + e.getMessage());
+                        getLogger().severe("Error during punishment expiration sweep: " + e.getMessage());
                         e.printStackTrace();
                     }
                 },
@@ -153,6 +210,79 @@ public class TrueBan extends JavaPlugin {
         );
     }
 
+    private void scheduleChangeSync() {
+        long interval = configManager.getSyncIntervalSeconds();
+
+        expirationExecutor.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        int changed = punishmentManager.syncChanges().join();
+                        if (changed > 0 && configManager.getBoolean("settings.debug", false)) {
+                            getLogger().info("Applied " + changed + " punishment changes from other servers");
+                        }
+                    } catch (Exception e) {
+                        getLogger().warning("Failed to sync punishment changes: " + e.getMessage());
+                    }
+                },
+                interval, interval, TimeUnit.SECONDS
+        );
+    }
+
+    private void startMetricsServer() {
+        MetricsServer server = new MetricsServer(this);
+        try {
+            server.start();
+            this.metricsServer = server;
+            getLogger().info("✓ Serving metrics on " + server.getAddress() + configManager.getString("metrics.path", "/metrics"));
+        } catch (Exception e) {
+            server.stop();
+            getLogger().warning("Failed to start metrics endpoint: " + e.getMessage());
+        }
+    }
+
+    private void scheduleStatsLog() {
+        long interval = configManager.getStatsLogIntervalMinutes();
+        long[] lastCalls = {0};
+
+        expirationExecutor.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        StorageMetrics metrics = storageManager.getMetrics();
+                        long calls = metrics.getOperations().values().stream().mapToLong(StorageMetrics.OperationStats::getCalls).sum();
+                        // Stay quiet while nothing is happening
+                        if (calls == lastCalls[0]) {
+                            return;
+                        }
+                        lastCalls[0] = calls;
+                        logStorageStats(metrics);
+                    } catch (Exception e) {
+                        getLogger().warning("Failed to log storage statistics: " + e.getMessage());
+                    }
+                },
+                interval, interval, TimeUnit.MINUTES
+        );
+    }
+
+    private void logStorageStats(StorageMetrics metrics) {
+        getLogger().info("Storage statistics (latency p50/p95/p99/max ms): " + metrics.getInFlight() + " in flight, "
+                + metrics.getPendingWrites() + " writes pending");
+
+        metrics.getOperations().forEach((operation, stats) -> {
+            if (stats.getCalls() == 0 && stats.getExecution().getCount() == 0) {
+                return;
+            }
+            getLogger().info("  " + operation.getKey() + ": " + stats.getCalls() + " calls, " + stats.getErrors() + " failed"
+                    + ", total " + StorageMetrics.formatMillis(stats.getTotal())
+                    + ", queued " + StorageMetrics.formatMillis(stats.getQueueWait())
+                    + ", running " + StorageMetrics.formatMillis(stats.getExecution()));
+        });
+
+        for (StorageMetrics.ExecutorStats executor : metrics.getExecutorStats()) {
+            getLogger().info("  " + executor.name() + ": " + executor.queued() + " queued, " + executor.active() + " active, "
+                    + executor.completed() + " completed");
+        }
+    }
+
     public static TrueBan getInstance() {
         return instance;
     }
@@ -173,6 +303,14 @@ public class TrueBan extends JavaPlugin {
         return punishmentManager;
     }
 
+    public PluginMetrics getMetrics() {
+        return metrics;
+    }
+
+    public BlocklistManager getBlocklistManager() {
+        return blocklistManager;
+    }
+
     public ScheduledExecutorService getExpirationExecutor() {
         return expirationExecutor;
     }
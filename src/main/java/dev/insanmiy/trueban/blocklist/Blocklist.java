@@ -0,0 +1,9 @@
+package dev.insanmiy.trueban.blocklist;
+
+import dev.insanmiy.trueban.ip.IpIntervalSet;
+
+/**
+ * A loaded blocklist file: its ranges plus what was read from it.
+ */
+public record Blocklist(String name, IpIntervalSet ranges, int entries, int invalidLines, long loadedAt, long loadMillis) {
+}
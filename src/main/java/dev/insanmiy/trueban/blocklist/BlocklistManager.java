@@ -0,0 +1,177 @@
+package dev.insanmiy.trueban.blocklist;
+
+import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.ip.CidrRange;
+import dev.insanmiy.trueban.ip.IpAddresses;
+import dev.insanmiy.trueban.ip.IpIntervalSet;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * IP blocklists loaded from {@code plugins/TrueBan/blocklists}. Each file is parsed on a background thread into
+ * an {@link IpIntervalSet} and published by swapping an immutable list, so login checks never see a partly built list.
+ * <p>
+ * Files hold one address or CIDR range per line; text after {@code #} or {@code ;} and anything after the first
+ * whitespace is ignored.
+ */
+public class BlocklistManager {
+
+    private final TrueBan plugin;
+    private final Path directory;
+    private final ExecutorService executor;
+    private volatile List<Blocklist> blocklists = Collections.emptyList();
+
+    public BlocklistManager(TrueBan plugin) {
+        this.plugin = plugin;
+        this.directory = plugin.getDataFolder().toPath().resolve("blocklists").toAbsolutePath().normalize();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "TrueBan-Blocklist");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Loads every file in the blocklist directory in the background.
+     */
+    public void loadAll() {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to create blocklist directory: " + e.getMessage());
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, Files::isRegularFile)) {
+            for (Path file : files) {
+                load(file.getFileName().toString()).whenComplete((list, ex) -> {
+                    if (ex != null) {
+                        plugin.getLogger().warning("Failed to load blocklist " + file.getFileName() + ": " + ex.getMessage());
+                    } else {
+                        plugin.getLogger().info("Loaded blocklist " + list.name() + " (" + list.entries() + " entries, "
+                                + list.ranges().intervalCount() + " intervals)");
+                    }
+                });
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to list blocklists: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses {@code fileName} from the blocklist directory and replaces any list previously loaded under that name.
+     * Paths outside the directory are rejected.
+     */
+    public CompletableFuture<Blocklist> load(String fileName) {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || file.equals(directory)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Blocklists must be inside " + directory));
+        }
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Blocklist list = parse(file);
+                publish(list);
+                return list;
+            } catch (IOException e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }, executor);
+    }
+
+    public boolean unload(String name) {
+        synchronized (this) {
+            List<Blocklist> updated = new ArrayList<>(blocklists);
+            boolean removed = updated.removeIf(list -> list.name().equals(name));
+            blocklists = Collections.unmodifiableList(updated);
+            return removed;
+        }
+    }
+
+    public List<Blocklist> getBlocklists() {
+        return blocklists;
+    }
+
+    /**
+     * Returns the first loaded blocklist containing {@code ipAddress}, or {@code null}.
+     */
+    public Blocklist match(String ipAddress) {
+        List<Blocklist> current = blocklists;
+        if (current.isEmpty()) {
+            return null;
+        }
+
+        byte[] address = IpAddresses.parse(ipAddress);
+        for (Blocklist list : current) {
+            if (list.ranges().contains(address)) {
+                return list;
+            }
+        }
+        return null;
+    }
+
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private Blocklist parse(Path file) throws IOException {
+        long started = System.currentTimeMillis();
+        IpIntervalSet.Builder builder = IpIntervalSet.builder();
+        int entries = 0;
+        int invalid = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String entry = stripComment(line);
+                if (entry.isEmpty()) {
+                    continue;
+                }
+
+                CidrRange range = CidrRange.parse(entry);
+                if (range == null) {
+                    invalid++;
+                    continue;
+                }
+                builder.add(range);
+                entries++;
+            }
+        }
+
+        return new Blocklist(file.getFileName().toString(), builder.build(), entries, invalid,
+                System.currentTimeMillis(), System.currentTimeMillis() - started);
+    }
+
+    private synchronized void publish(Blocklist list) {
+        List<Blocklist> updated = new ArrayList<>(blocklists);
+        updated.removeIf(existing -> existing.name().equals(list.name()));
+        updated.add(list);
+        blocklists = Collections.unmodifiableList(updated);
+    }
+
+    private static String stripComment(String line) {
+        String trimmed = line.trim();
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c == '#' || c == ';' || Character.isWhitespace(c)) {
+                return trimmed.substring(0, i);
+            }
+        }
+        return trimmed;
+    }
+}
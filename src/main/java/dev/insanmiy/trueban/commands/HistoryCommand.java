@@ -1,19 +1,24 @@
 package dev.insanmiy.trueban.commands;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.punishment.HistoryPage;
 import dev.insanmiy.trueban.punishment.Punishment;
+import dev.insanmiy.trueban.punishment.PunishmentManager;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 
 public class HistoryCommand extends CommandBase implements CommandExecutor {
 
-    private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+    // Pages are rendered on storage reader threads and, for cached pages, the calling thread, so this must be thread-safe
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
 
     public HistoryCommand(TrueBan plugin) {
         super(plugin);
@@ -27,11 +32,25 @@ public class HistoryCommand extends CommandBase implements CommandExecutor {
 
         if (args.length < 1) {
             sendMessage(sender, "commands.invalid-syntax",
-                    createPlaceholders("usage", "/history <player>"));
+                    createPlaceholders("usage", "/history <player> [page]"));
             return true;
         }
 
         String playerName = args[0];
+        int page = 1;
+        if (args.length >= 2) {
+            try {
+                page = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                page = 0;
+            }
+            if (page < 1) {
+                sendMessage(sender, "commands.invalid-syntax",
+                        createPlaceholders("usage", "/history <player> [page]"));
+                return true;
+            }
+        }
+        int requestedPage = page;
 
         getPlayerUUID(playerName, uuid -> {
             if (uuid == null) {
@@ -40,27 +59,37 @@ public class HistoryCommand extends CommandBase implements CommandExecutor {
                 return;
             }
 
-            plugin.getPunishmentManager().getPunishmentHistory(uuid).whenComplete((punishments, ex) -> {
+            plugin.getPunishmentManager().getHistoryPage(uuid, requestedPage).whenComplete((historyPage, ex) -> {
                 if (ex != null) {
                     sendMessage(sender, "errors.database-error");
                     return;
                 }
 
+                List<Punishment> punishments = historyPage.entries();
                 if (punishments.isEmpty()) {
-                    Map<String, String> placeholders = createPlaceholders("player", playerName);
-                    sendMessage(sender, "history.no-history", placeholders);
+                    if (requestedPage == 1) {
+                        sendMessage(sender, "history.no-history", createPlaceholders("player", playerName));
+                    } else {
+                        sendMessage(sender, "history.no-page",
+                                createPlaceholders("player", playerName, "page", String.valueOf(requestedPage)));
+                    }
                     return;
                 }
 
-                Map<String, String> headerPlaceholders = createPlaceholders("player", playerName);
+                Map<String, String> headerPlaceholders = createPlaceholders("player", playerName, "page", String.valueOf(requestedPage));
                 sender.sendMessage(messages.getMessage("history.header", headerPlaceholders));
 
+                int offset = (requestedPage - 1) * PunishmentManager.HISTORY_PAGE_SIZE;
                 for (int i = 0; i < punishments.size(); i++) {
                     Punishment p = punishments.get(i);
-                    String message = formatHistoryEntry(i, p);
+                    String message = formatHistoryEntry(offset + i, p);
                     sender.sendMessage(message);
                 }
 
+                if (historyPage.hasNext()) {
+                    sender.sendMessage(messages.getMessage("history.next-page",
+                            createPlaceholders("player", playerName, "next", String.valueOf(requestedPage + 1))));
+                }
                 sender.sendMessage(messages.getMessage("history.footer"));
             });
         });
@@ -73,12 +102,12 @@ public class HistoryCommand extends CommandBase implements CommandExecutor {
                 messages.getMessage("history.active-badge") : 
                 messages.getMessage("history.expired-badge");
 
-        String createdDate = dateFormat.format(new Date(punishment.getCreatedAt()));
+        String createdDate = DATE_FORMAT.format(Instant.ofEpochMilli(punishment.getCreatedAt()));
 
         if (punishment.getType().isTemporary()) {
             String expiryDate = punishment.getExpiresAt() == -1 ? 
                     "Never" : 
-                    dateFormat.format(new Date(punishment.getExpiresAt()));
+                    DATE_FORMAT.format(Instant.ofEpochMilli(punishment.getExpiresAt()));
 
             return messages.getMessage("history.tempban-entry-format",
                     createPlaceholders(
@@ -1,6 +1,7 @@
 package dev.insanmiy.trueban.commands;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.ip.IpAddresses;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
@@ -10,10 +11,13 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 public class IpTabCompleter implements TabCompleter {
 
+    private static final int MAX_COMPLETIONS = 100;
+
     private final TrueBan plugin;
 
     public IpTabCompleter(TrueBan plugin) {
@@ -25,17 +29,18 @@ public class IpTabCompleter implements TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            String input = args[0].toLowerCase();
+            String input = args[0].toLowerCase(Locale.ROOT);
             Set<String> seen = new HashSet<>();
 
             for (Player player : Bukkit.getOnlinePlayers()) {
                 String name = player.getName();
-                if (name.toLowerCase().startsWith(input) && seen.add(name)) {
+                if (name.toLowerCase(Locale.ROOT).startsWith(input) && seen.add(name)) {
                     completions.add(name);
                 }
             }
 
-            if (input.matches("\\d.*")) {
+            if (IpAddresses.looksLikeAddress(input)) {
+                completions.addAll(plugin.getPunishmentManager().completeBannedIps(input, MAX_COMPLETIONS));
             }
         }
 
@@ -1,6 +1,8 @@
 package dev.insanmiy.trueban.commands;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.ip.CidrRange;
+import dev.insanmiy.trueban.ip.IpAddresses;
 import dev.insanmiy.trueban.punishment.PunishmentType;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
@@ -25,7 +27,7 @@ public class IpbanCommand extends CommandBase implements CommandExecutor {
 
         if (args.length < 1) {
             sendMessage(sender, "commands.invalid-syntax",
-                    createPlaceholders("usage", "/ipban <player|ip> [reason]"));
+                    createPlaceholders("usage", "/ipban <player|ip|cidr> [reason]"));
             return true;
         }
 
@@ -34,9 +36,10 @@ public class IpbanCommand extends CommandBase implements CommandExecutor {
         String operator = sender.getName();
 
         String ipAddress;
+        CidrRange range = CidrRange.parse(target);
 
-        if (isIPAddress(target)) {
-            ipAddress = target;
+        if (range != null) {
+            ipAddress = range.toString();
         } else {
             final Player player = Bukkit.getPlayer(target);
             if (player != null) {
@@ -49,7 +52,7 @@ public class IpbanCommand extends CommandBase implements CommandExecutor {
             }
         }
 
-        plugin.getStorageManager().getPunishmentsByIP(ipAddress).whenComplete((existing, ex) -> {
+        plugin.getPunishmentManager().getActiveIPBans(ipAddress).whenComplete((existing, ex) -> {
             if (ex != null) {
                 sendMessage(sender, "errors.database-error");
                 return;
@@ -74,18 +77,18 @@ public class IpbanCommand extends CommandBase implements CommandExecutor {
                     return;
                 }
 
-                // Kick player on main thread after IP ban is saved
-                if (!isIPAddress(target)) {
-                    Player player = Bukkit.getPlayer(target);
-                    if (player != null && player.isOnline()) {
-                        Bukkit.getScheduler().runTask(plugin, () -> {
-                            player.kickPlayer(
-                                messages.getMessage("ban.ipban_message",
-                                        createPlaceholders("reason", reason, "operator", operator, "ip", ipAddress))
-                            );
-                        });
+                // Kick every online player inside the banned range on the main thread after the ban is saved
+                CidrRange banned = CidrRange.parse(ipAddress);
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    String kickMessage = messages.getMessage("ban.ipban_message",
+                            createPlaceholders("reason", reason, "operator", operator, "ip", ipAddress));
+                    for (Player online : Bukkit.getOnlinePlayers()) {
+                        if (online.getAddress() != null
+                                && banned.contains(IpAddresses.parse(online.getAddress().getAddress().getHostAddress()))) {
+                            online.kickPlayer(kickMessage);
+                        }
                     }
-                }
+                });
 
                 Map<String, String> placeholders = createPlaceholders("ip", ipAddress);
                 sendMessage(sender, "ban.successfully-ipbanned", placeholders);
@@ -98,8 +101,4 @@ public class IpbanCommand extends CommandBase implements CommandExecutor {
 
         return true;
     }
-
-    private boolean isIPAddress(String str) {
-        return str.matches("\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}");
-    }
 }
@@ -2,6 +2,7 @@ package dev.insanmiy.trueban.commands;
 
 import dev.insanmiy.trueban.TrueBan;
 import dev.insanmiy.trueban.punishment.PunishmentType;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -42,7 +43,7 @@ public class KickCommand extends CommandBase implements CommandExecutor {
 
         String kickMessage = messages.getMessage("kick.kicked_message",
                 createPlaceholders("reason", reason, "operator", operator));
-        player.kick(net.kyori.adventure.text.Component.text(kickMessage));
+        player.kick(LegacyComponentSerializer.legacySection().deserialize(kickMessage));
 
         Map<String, String> placeholders = createPlaceholders("player", playerName);
         sendMessage(sender, "kick.successfully-kicked", placeholders);
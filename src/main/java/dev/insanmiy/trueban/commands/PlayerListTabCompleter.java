@@ -8,10 +8,15 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 public class PlayerListTabCompleter implements TabCompleter {
 
+    private static final int MAX_COMPLETIONS = 100;
+
     private final TrueBan plugin;
 
     public PlayerListTabCompleter(TrueBan plugin) {
@@ -23,25 +28,21 @@ public class PlayerListTabCompleter implements TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            String input = args[0].toLowerCase();
+            String input = args[0].toLowerCase(Locale.ROOT);
+            Set<String> seen = new HashSet<>();
 
             for (Player player : Bukkit.getOnlinePlayers()) {
-                if (player.getName().toLowerCase().startsWith(input)) {
-                    completions.add(player.getName());
+                String name = player.getName();
+                if (name.toLowerCase(Locale.ROOT).startsWith(input) && seen.add(name.toLowerCase(Locale.ROOT))) {
+                    completions.add(name);
                 }
             }
 
-            plugin.getStorageManager().getKnownPlayerNames().whenComplete((names, ex) -> {
-                if (names != null) {
-                    for (String name : names) {
-                        if (name.toLowerCase().startsWith(input) && !completions.contains(name)) {
-                            completions.add(name);
-                        }
-                    }
+            for (String name : plugin.getPunishmentManager().completePlayerNames(input, MAX_COMPLETIONS)) {
+                if (seen.add(name.toLowerCase(Locale.ROOT))) {
+                    completions.add(name);
                 }
-            });
-        }
-        else if (args.length >= 2) {
+            }
         }
 
         return completions;
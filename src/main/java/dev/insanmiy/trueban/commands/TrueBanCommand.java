@@ -0,0 +1,152 @@
+package dev.insanmiy.trueban.commands;
+
+import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.blocklist.Blocklist;
+import dev.insanmiy.trueban.storage.StorageMetrics;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandExecutor;
+import org.bukkit.command.CommandSender;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+public class TrueBanCommand extends CommandBase implements CommandExecutor {
+
+    private static final String USAGE = "/trueban blocklist <load|unload|list> [file] | /trueban stats [reset]";
+
+    private volatile StorageMetrics.Snapshot statsBaseline;
+
+    public TrueBanCommand(TrueBan plugin) {
+        super(plugin);
+    }
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command cmd, String label, String[] args) {
+        if (!checkPermission(sender, "trueban.admin")) {
+            return true;
+        }
+
+        if (args.length >= 2 && args[0].equalsIgnoreCase("blocklist")) {
+            handleBlocklist(sender, args);
+            return true;
+        }
+
+        if (args.length >= 1 && args[0].equalsIgnoreCase("stats")) {
+            handleStats(sender, args);
+            return true;
+        }
+
+        sendMessage(sender, "commands.invalid-syntax", createPlaceholders("usage", USAGE));
+        return true;
+    }
+
+    private void handleBlocklist(CommandSender sender, String[] args) {
+        String action = args[1].toLowerCase();
+
+        if (action.equals("list")) {
+            List<Blocklist> blocklists = plugin.getBlocklistManager().getBlocklists();
+            if (blocklists.isEmpty()) {
+                sendMessage(sender, "blocklist.none");
+                return;
+            }
+
+            sendMessage(sender, "blocklist.list-header", createPlaceholders("count", String.valueOf(blocklists.size())));
+            for (Blocklist list : blocklists) {
+                sendMessage(sender, "blocklist.list-entry", createPlaceholders(
+                        "file", list.name(),
+                        "entries", String.valueOf(list.entries()),
+                        "intervals", String.valueOf(list.ranges().intervalCount())));
+            }
+            return;
+        }
+
+        if (args.length < 3) {
+            sendMessage(sender, "commands.invalid-syntax", createPlaceholders("usage", USAGE));
+            return;
+        }
+
+        String file = args[2];
+
+        if (action.equals("load")) {
+            sendMessage(sender, "blocklist.loading", createPlaceholders("file", file));
+
+            plugin.getBlocklistManager().load(file).whenComplete((list, ex) -> {
+                if (ex != null) {
+                    Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                    sendMessage(sender, "blocklist.load-failed", createPlaceholders("file", file, "error", cause.getMessage()));
+                    return;
+                }
+
+                sendMessage(sender, "blocklist.loaded", createPlaceholders(
+                        "file", list.name(),
+                        "entries", String.valueOf(list.entries()),
+                        "intervals", String.valueOf(list.ranges().intervalCount()),
+                        "invalid", String.valueOf(list.invalidLines()),
+                        "millis", String.valueOf(list.loadMillis())));
+            });
+        } else if (action.equals("unload")) {
+            if (plugin.getBlocklistManager().unload(file)) {
+                sendMessage(sender, "blocklist.unloaded", createPlaceholders("file", file));
+            } else {
+                sendMessage(sender, "blocklist.not-loaded", createPlaceholders("file", file));
+            }
+        } else {
+            sendMessage(sender, "commands.invalid-syntax", createPlaceholders("usage", USAGE));
+        }
+    }
+
+    private void handleStats(CommandSender sender, String[] args) {
+        StorageMetrics metrics = plugin.getStorageManager().getMetrics();
+
+        if (args.length >= 2) {
+            if (args[1].equalsIgnoreCase("reset")) {
+                // Only this command's view is reset; the live metrics keep growing for Prometheus and the stats log
+                statsBaseline = metrics.snapshot();
+                sendMessage(sender, "stats.reset");
+            } else {
+                sendMessage(sender, "commands.invalid-syntax", createPlaceholders("usage", USAGE));
+            }
+            return;
+        }
+
+        StorageMetrics.Snapshot baseline = statsBaseline;
+        StorageMetrics.Snapshot current = metrics.snapshot();
+        if (baseline != null) {
+            current = current.since(baseline);
+        }
+
+        sendMessage(sender, "stats.header", createPlaceholders(
+                "since", new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(
+                        new Date(baseline != null ? baseline.getTakenAt() : metrics.getSince())),
+                "in_flight", String.valueOf(metrics.getInFlight()),
+                "pending", String.valueOf(metrics.getPendingWrites())));
+
+        boolean any = false;
+        for (var entry : current.getOperations().entrySet()) {
+            StorageMetrics.OperationStats stats = entry.getValue();
+            if (stats.getCalls() == 0 && stats.getExecution().getCount() == 0) {
+                continue;
+            }
+            any = true;
+            sendMessage(sender, "stats.operation", createPlaceholders(
+                    "operation", entry.getKey().getKey(),
+                    "calls", String.valueOf(stats.getCalls()),
+                    "errors", String.valueOf(stats.getErrors()),
+                    "total", StorageMetrics.formatMillis(stats.getTotal()),
+                    "wait", StorageMetrics.formatMillis(stats.getQueueWait()),
+                    "execution", StorageMetrics.formatMillis(stats.getExecution())));
+        }
+        if (!any) {
+            sendMessage(sender, "stats.none");
+        }
+
+        for (StorageMetrics.ExecutorStats executor : metrics.getExecutorStats()) {
+            sendMessage(sender, "stats.executor", createPlaceholders(
+                    "executor", executor.name(),
+                    "queued", String.valueOf(executor.queued()),
+                    "active", String.valueOf(executor.active()),
+                    "completed", String.valueOf(executor.completed())));
+        }
+    }
+}
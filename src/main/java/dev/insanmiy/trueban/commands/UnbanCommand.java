@@ -1,6 +1,7 @@
 package dev.insanmiy.trueban.commands;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.ip.CidrRange;
 import dev.insanmiy.trueban.punishment.Punishment;
 import dev.insanmiy.trueban.punishment.PunishmentType;
 import org.bukkit.command.Command;
@@ -24,14 +25,15 @@ public class UnbanCommand extends CommandBase implements CommandExecutor {
 
         if (args.length < 1) {
             sendMessage(sender, "commands.invalid-syntax",
-                    createPlaceholders("usage", "/unban <player|ip>"));
+                    createPlaceholders("usage", "/unban <player|ip|cidr>"));
             return true;
         }
 
         String target = args[0];
 
-        if (isIPAddress(target)) {
-            unbanIP(sender, target);
+        CidrRange range = CidrRange.parse(target);
+        if (range != null) {
+            unbanIP(sender, range.toString());
         } else {
             unbanPlayer(sender, target);
         }
@@ -58,8 +60,7 @@ public class UnbanCommand extends CommandBase implements CommandExecutor {
 
                 for (Punishment p : punishments) {
                     if (p.getType().isBan()) {
-                        p.setActive(false);
-                        plugin.getStorageManager().updatePunishment(p);
+                        plugin.getPunishmentManager().deactivatePunishment(p);
                         found = true;
 
                         if (p.getIpAddress() != null && !p.getIpAddress().isEmpty()) {
@@ -93,7 +94,7 @@ public class UnbanCommand extends CommandBase implements CommandExecutor {
     }
 
     private void unbanIP(CommandSender sender, String ipAddress) {
-        plugin.getStorageManager().getPunishmentsByIP(ipAddress).whenComplete((punishments, ex) -> {
+        plugin.getPunishmentManager().getActiveIPBans(ipAddress).whenComplete((punishments, ex) -> {
             if (ex != null) {
                 sendMessage(sender, "errors.database-error");
                 return;
@@ -102,8 +103,7 @@ public class UnbanCommand extends CommandBase implements CommandExecutor {
             boolean found = false;
             for (Punishment p : punishments) {
                 if (p.getType() == PunishmentType.IPBAN) {
-                    p.setActive(false);
-                    plugin.getStorageManager().updatePunishment(p);
+                    plugin.getPunishmentManager().deactivatePunishment(p);
                     found = true;
                 }
             }
@@ -125,8 +125,4 @@ public class UnbanCommand extends CommandBase implements CommandExecutor {
                     createPlaceholders("ip", ipAddress));
         });
     }
-
-    private boolean isIPAddress(String str) {
-        return str.matches("\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}\\.\\d{1,3}");
-    }
 }
@@ -1,6 +1,7 @@
 package dev.insanmiy.trueban.commands;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.ip.IpAddresses;
 import dev.insanmiy.trueban.punishment.Punishment;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
@@ -11,10 +12,13 @@ import org.bukkit.entity.Player;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 
 public class UnbanTabCompleter implements TabCompleter {
 
+    private static final int MAX_COMPLETIONS = 100;
+
     private final TrueBan plugin;
 
     public UnbanTabCompleter(TrueBan plugin) {
@@ -26,26 +30,25 @@ public class UnbanTabCompleter implements TabCompleter {
         List<String> completions = new ArrayList<>();
 
         if (args.length == 1) {
-            String input = args[0].toLowerCase();
+            String input = args[0].toLowerCase(Locale.ROOT);
             Set<String> seen = new HashSet<>();
 
             for (Player player : Bukkit.getOnlinePlayers()) {
                 String name = player.getName();
-                if (name.toLowerCase().startsWith(input) && seen.add(name)) {
+                if (name.toLowerCase(Locale.ROOT).startsWith(input) && seen.add(name.toLowerCase(Locale.ROOT))) {
                     completions.add(name);
                 }
             }
 
-            plugin.getStorageManager().getKnownPlayerNames().whenComplete((names, ex) -> {
-                if (names != null) {
-                    for (String name : names) {
-                        if (name.toLowerCase().startsWith(input) && seen.add(name)) {
-                            completions.add(name);
-                        }
-                    }
+            for (String name : plugin.getPunishmentManager().completePlayerNames(input, MAX_COMPLETIONS)) {
+                if (seen.add(name.toLowerCase(Locale.ROOT))) {
+                    completions.add(name);
                 }
-            });
+            }
 
+            if (IpAddresses.looksLikeAddress(input)) {
+                completions.addAll(plugin.getPunishmentManager().completeBannedIps(input, MAX_COMPLETIONS));
+            }
         }
 
         return completions;
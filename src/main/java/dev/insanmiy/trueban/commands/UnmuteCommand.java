@@ -44,8 +44,7 @@ public class UnmuteCommand extends CommandBase implements CommandExecutor {
                 boolean found = false;
                 for (Punishment p : punishments) {
                     if (p.getType().isMute()) {
-                        p.setActive(false);
-                        plugin.getStorageManager().updatePunishment(p);
+                        plugin.getPunishmentManager().deactivatePunishment(p);
                         found = true;
                     }
                 }
@@ -17,6 +17,12 @@ public class ConfigManager {
     private String storageType;
     private long expirationCheckInterval;
     private int asyncThreads;
+    private int writeBatchSize;
+    private long writeFlushIntervalMillis;
+    private long syncIntervalSeconds;
+    private int cacheMaxEntries;
+    private long cacheTtlSeconds;
+    private long statsLogIntervalMinutes;
 
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -29,9 +35,15 @@ public class ConfigManager {
         Yaml yaml = new Yaml();
 
         try (FileInputStream fis = new FileInputStream(configFile)) {
-            configData = yaml.load(fis);
+            loadConfig(yaml.load(fis));
         }
+    }
 
+    /**
+     * Applies already parsed config.yml contents; used directly where there is no plugin data folder.
+     */
+    public void loadConfig(Map<String, Object> data) {
+        configData = data;
         parseConfig();
     }
 
@@ -94,9 +106,33 @@ public class ConfigManager {
 
             Object threadsObj = settings.get("async-threads");
             asyncThreads = threadsObj instanceof Number ? ((Number) threadsObj).intValue() : 2;
+
+            Object batchSizeObj = settings.get("write-batch-size");
+            writeBatchSize = batchSizeObj instanceof Number ? ((Number) batchSizeObj).intValue() : 500;
+
+            Object flushIntervalObj = settings.get("write-flush-interval-millis");
+            writeFlushIntervalMillis = flushIntervalObj instanceof Number ? ((Number) flushIntervalObj).longValue() : 50L;
+
+            Object syncIntervalObj = settings.get("sync-interval-seconds");
+            syncIntervalSeconds = syncIntervalObj instanceof Number ? ((Number) syncIntervalObj).longValue() : 5L;
+
+            Object cacheSizeObj = settings.get("cache-max-entries");
+            cacheMaxEntries = cacheSizeObj instanceof Number ? ((Number) cacheSizeObj).intValue() : 1000;
+
+            Object cacheTtlObj = settings.get("cache-ttl-seconds");
+            cacheTtlSeconds = cacheTtlObj instanceof Number ? ((Number) cacheTtlObj).longValue() : 300L;
+
+            Object statsLogObj = settings.get("stats-log-interval-minutes");
+            statsLogIntervalMinutes = statsLogObj instanceof Number ? ((Number) statsLogObj).longValue() : 15L;
         } else {
             expirationCheckInterval = 30L;
             asyncThreads = 2;
+            writeBatchSize = 500;
+            writeFlushIntervalMillis = 50L;
+            syncIntervalSeconds = 5L;
+            cacheMaxEntries = 1000;
+            cacheTtlSeconds = 300L;
+            statsLogIntervalMinutes = 15L;
         }
     }
 
@@ -113,6 +149,30 @@ public class ConfigManager {
         return asyncThreads;
     }
 
+    public int getWriteBatchSize() {
+        return writeBatchSize;
+    }
+
+    public long getWriteFlushIntervalMillis() {
+        return writeFlushIntervalMillis;
+    }
+
+    public long getSyncIntervalSeconds() {
+        return syncIntervalSeconds;
+    }
+
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    public long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public long getStatsLogIntervalMinutes() {
+        return statsLogIntervalMinutes;
+    }
+
     public Map<String, Object> getConfigData() {
         return configData;
     }
@@ -1,5 +1,6 @@
 package dev.insanmiy.trueban.config;
 
+import dev.insanmiy.trueban.jfr.MessageRenderEvent;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.yaml.snakeyaml.Yaml;
 
@@ -7,20 +8,22 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
 
 public class MessageManager {
 
     private final JavaPlugin plugin;
     private Map<String, Object> messagesData;
-    private final Pattern colorPattern = Pattern.compile("&([0-9a-fk-or])");
-    private final Pattern placeholderPattern = Pattern.compile("%([a-zA-Z_]+)%");
+    private Map<String, MessageTemplate> templates;
+    private Set<String> sections;
 
     public MessageManager(JavaPlugin plugin) {
         this.plugin = plugin;
         this.messagesData = new HashMap<>();
+        this.templates = Map.of();
+        this.sections = Set.of();
     }
 
     public void loadMessages() throws IOException {
@@ -28,74 +31,71 @@ public class MessageManager {
         Yaml yaml = new Yaml();
 
         try (FileInputStream fis = new FileInputStream(messagesFile)) {
-            messagesData = yaml.load(fis);
+            loadMessages((Map<String, Object>) yaml.load(fis));
         }
+    }
 
+    /**
+     * Compiles already parsed messages.yml contents.
+     */
+    public void loadMessages(Map<String, Object> data) {
+        messagesData = data;
         if (messagesData == null) {
             messagesData = new HashMap<>();
         }
-    }
 
-    public String getMessage(String path) {
-        return formatMessage(getMessageRaw(path));
+        // Flatten to dotted paths and compile every message once, so lookups are a single map get
+        Map<String, MessageTemplate> compiled = new HashMap<>();
+        Set<String> sectionPaths = new HashSet<>();
+        compile("", messagesData, compiled, sectionPaths);
+        templates = Map.copyOf(compiled);
+        sections = Set.copyOf(sectionPaths);
     }
 
-    public String getMessage(String path, Map<String, String> placeholders) {
-        String message = getMessage(path);
-        return replacePlaceholders(message, placeholders);
-    }
-
-    public String getMessage(String path, String placeholder, String value) {
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put(placeholder, value);
-        return getMessage(path, placeholders);
-    }
-
-    private String getMessageRaw(String path) {
-        Map<String, Object> current = messagesData;
-        String[] keys = path.split("\\.");
-
-        for (int i = 0; i < keys.length - 1; i++) {
-            Object obj = current.get(keys[i]);
-            if (obj instanceof Map) {
-                current = (Map<String, Object>) obj;
-            } else {
+    private void compile(String prefix, Map<String, Object> section, Map<String, MessageTemplate> compiled, Set<String> sectionPaths) {
+        for (Map.Entry<String, Object> entry : section.entrySet()) {
+            String path = prefix + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                sectionPaths.add(path);
+                compile(path + ".", (Map<String, Object>) value, compiled, sectionPaths);
+            } else if (value != null) {
+                compiled.put(path, MessageTemplate.compile(value.toString()));
             }
         }
-
-        Object value = current.get(keys[keys.length - 1]);
-        return value != null ? value.toString() : path;
     }
 
-    private String formatMessage(String message) {
-        if (message == null || message.isEmpty()) {
-            return "";
-        }
-
-        Matcher matcher = colorPattern.matcher(message);
-        StringBuffer sb = new StringBuffer();
+    public MessageTemplate getTemplate(String path) {
+        MessageTemplate template = templates.get(path);
+        return template != null ? template : MessageTemplate.compile(path);
+    }
 
-        while (matcher.find()) {
-            matcher.appendReplacement(sb, "§" + matcher.group(1));
-        }
-        matcher.appendTail(sb);
+    public String getMessage(String path) {
+        MessageRenderEvent event = new MessageRenderEvent();
+        event.begin();
+        return rendered(event, path, getTemplate(path).render());
+    }
 
-        return sb.toString();
+    public String getMessage(String path, Map<String, String> placeholders) {
+        MessageRenderEvent event = new MessageRenderEvent();
+        event.begin();
+        return rendered(event, path, getTemplate(path).render(placeholders));
     }
 
-    private String replacePlaceholders(String message, Map<String, String> placeholders) {
-        if (message == null || placeholders == null || placeholders.isEmpty()) {
-            return message;
-        }
+    public String getMessage(String path, String placeholder, String value) {
+        MessageRenderEvent event = new MessageRenderEvent();
+        event.begin();
+        return rendered(event, path, getTemplate(path).render(placeholder, value));
+    }
 
-        String result = message;
-        for (Map.Entry<String, String> entry : placeholders.entrySet()) {
-            String placeholder = "%" + entry.getKey() + "%";
-            String value = entry.getValue() != null ? entry.getValue() : "";
-            result = result.replace(placeholder, value);
+    // Outside a flight recording shouldCommit is false and the event costs next to nothing
+    private static String rendered(MessageRenderEvent event, String path, String message) {
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.length = message.length();
+            event.commit();
         }
-
-        return result;
+        return message;
     }
 
     public String getPrefix() {
@@ -111,18 +111,6 @@ public class MessageManager {
     }
 
     public boolean hasMessage(String path) {
-        Map<String, Object> current = messagesData;
-        String[] keys = path.split("\\.");
-
-        for (int i = 0; i < keys.length - 1; i++) {
-            Object obj = current.get(keys[i]);
-            if (obj instanceof Map) {
-                current = (Map<String, Object>) obj;
-            } else {
-                return false;
-            }
-        }
-
-        return current.containsKey(keys[keys.length - 1]);
+        return templates.containsKey(path) || sections.contains(path);
     }
 }
@@ -0,0 +1,115 @@
+package dev.insanmiy.trueban.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A message compiled once at load time into color-translated literal segments and {@code %name%} placeholder slots.
+ * Rendering is a single pass into a pre-sized builder; placeholder values are inserted as-is, and placeholders
+ * without a value are left in the output unchanged.
+ */
+public final class MessageTemplate {
+
+    private static final String COLOR_CODES = "0123456789abcdefklmnor";
+
+    private final String[] literals;
+    private final String[] slots;
+    private final int literalLength;
+    private final String plain;
+
+    private MessageTemplate(String[] literals, String[] slots) {
+        this.literals = literals;
+        this.slots = slots;
+
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+
+        StringBuilder sb = new StringBuilder(length + slots.length * 8);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]).append('%').append(slots[i]).append('%');
+        }
+        this.plain = sb.append(literals[slots.length]).toString();
+    }
+
+    public static MessageTemplate compile(String raw) {
+        List<String> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+
+        int start = 0;
+        int i = 0;
+        while (i < raw.length()) {
+            if (raw.charAt(i) == '%') {
+                int end = i + 1;
+                while (end < raw.length() && isPlaceholderChar(raw.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1 && end < raw.length() && raw.charAt(end) == '%') {
+                    literals.add(translateColors(raw.substring(start, i)));
+                    slots.add(raw.substring(i + 1, end));
+                    start = end + 1;
+                    i = start;
+                    continue;
+                }
+            }
+            i++;
+        }
+        literals.add(translateColors(raw.substring(start)));
+
+        return new MessageTemplate(literals.toArray(new String[0]), slots.toArray(new String[0]));
+    }
+
+    /**
+     * Returns the message with every placeholder left as written.
+     */
+    public String render() {
+        return plain;
+    }
+
+    public String render(Map<String, String> placeholders) {
+        if (slots.length == 0 || placeholders == null || placeholders.isEmpty()) {
+            return plain;
+        }
+
+        StringBuilder sb = new StringBuilder(literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            String slot = slots[i];
+            if (placeholders.containsKey(slot)) {
+                String value = placeholders.get(slot);
+                if (value != null) {
+                    sb.append(value);
+                }
+            } else {
+                sb.append('%').append(slot).append('%');
+            }
+        }
+        return sb.append(literals[slots.length]).toString();
+    }
+
+    public String render(String placeholder, String value) {
+        return render(Map.of(placeholder, value != null ? value : ""));
+    }
+
+    private static boolean isPlaceholderChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    // Same codes as before: '&' followed by a lowercase color or format code becomes a section sign
+    private static String translateColors(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length - 1; i++) {
+            if (chars[i] == '&' && COLOR_CODES.indexOf(chars[i + 1]) >= 0) {
+                chars[i] = '§';
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,125 @@
+package dev.insanmiy.trueban.ip;
+
+import java.util.Arrays;
+
+/**
+ * An IPv4 or IPv6 network in CIDR form. A single address is a range covering the full address width.
+ */
+public final class CidrRange {
+
+    private final byte[] network;
+    private final int prefixLength;
+
+    private CidrRange(byte[] network, int prefixLength) {
+        this.network = network;
+        this.prefixLength = prefixLength;
+    }
+
+    /**
+     * Parses {@code address} or {@code address/prefix}, returning {@code null} if the text is neither.
+     * Host bits below the prefix are cleared, so {@code 10.0.0.7/24} becomes {@code 10.0.0.0/24}.
+     */
+    public static CidrRange parse(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        int slash = text.indexOf('/');
+        byte[] address = IpAddresses.parse(slash >= 0 ? text.substring(0, slash) : text);
+        if (address == null) {
+            return null;
+        }
+
+        int bits = address.length * 8;
+        int prefixLength = bits;
+        if (slash >= 0) {
+            try {
+                prefixLength = Integer.parseInt(text.substring(slash + 1).trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (prefixLength < 0 || prefixLength > bits) {
+                return null;
+            }
+        }
+
+        return new CidrRange(mask(address, prefixLength), prefixLength);
+    }
+
+    public static CidrRange of(byte[] address, int prefixLength) {
+        return new CidrRange(mask(address.clone(), prefixLength), prefixLength);
+    }
+
+    public byte[] getNetwork() {
+        return network.clone();
+    }
+
+    public int getPrefixLength() {
+        return prefixLength;
+    }
+
+    public boolean isSingleAddress() {
+        return prefixLength == network.length * 8;
+    }
+
+    public boolean isIPv6() {
+        return network.length == 16;
+    }
+
+    public boolean contains(byte[] address) {
+        if (address == null || address.length != network.length) {
+            return false;
+        }
+
+        int fullBytes = prefixLength / 8;
+        for (int i = 0; i < fullBytes; i++) {
+            if (address[i] != network[i]) {
+                return false;
+            }
+        }
+
+        int remaining = prefixLength % 8;
+        if (remaining == 0) {
+            return true;
+        }
+        int bitMask = 0xFF << (8 - remaining);
+        return (address[fullBytes] & bitMask) == (network[fullBytes] & bitMask);
+    }
+
+    byte[] networkBytes() {
+        return network;
+    }
+
+    private static byte[] mask(byte[] address, int prefixLength) {
+        for (int i = 0; i < address.length; i++) {
+            int bitsInByte = Math.min(8, Math.max(0, prefixLength - i * 8));
+            address[i] &= (byte) (bitsInByte == 0 ? 0 : 0xFF << (8 - bitsInByte));
+        }
+        return address;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CidrRange other)) {
+            return false;
+        }
+        return prefixLength == other.prefixLength && Arrays.equals(network, other.network);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(network) + prefixLength;
+    }
+
+    /**
+     * Canonical text: the bare address for a single host, otherwise {@code network/prefix}.
+     */
+    @Override
+    public String toString() {
+        String address = IpAddresses.format(network);
+        return isSingleAddress() ? address : address + "/" + prefixLength;
+    }
+}
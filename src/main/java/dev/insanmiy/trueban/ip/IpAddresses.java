@@ -0,0 +1,178 @@
+package dev.insanmiy.trueban.ip;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Literal IPv4/IPv6 parsing without DNS lookups. Addresses are 4 or 16 bytes in network order.
+ */
+public final class IpAddresses {
+
+    private IpAddresses() {
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 literal, returning {@code null} when the text is not one.
+     */
+    public static byte[] parse(String text) {
+        if (text == null) {
+            return null;
+        }
+
+        String address = text.trim();
+        int scope = address.indexOf('%');
+        if (scope >= 0) {
+            address = address.substring(0, scope);
+        }
+        if (address.startsWith("[") && address.endsWith("]")) {
+            address = address.substring(1, address.length() - 1);
+        }
+
+        return address.indexOf(':') >= 0 ? unmap(parseV6(address)) : parseV4(address);
+    }
+
+    public static String format(byte[] address) {
+        if (address == null) {
+            return null;
+        }
+
+        try {
+            // getByAddress never resolves; it only wraps the raw bytes
+            return InetAddress.getByAddress(address).getHostAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the canonical text form of an address literal, or the input unchanged if it is not one.
+     */
+    public static String normalize(String text) {
+        byte[] address = parse(text);
+        return address == null ? text : format(address);
+    }
+
+    /**
+     * Whether partial tab-completion input could be the start of an address or range rather than a player name.
+     */
+    public static boolean looksLikeAddress(String input) {
+        return !input.isEmpty() && (Character.isDigit(input.charAt(0)) || input.indexOf(':') >= 0);
+    }
+
+    // Dual-stack sockets report IPv4 clients as ::ffff:a.b.c.d; treat those as the plain IPv4 address
+    private static byte[] unmap(byte[] address) {
+        if (address == null) {
+            return null;
+        }
+        for (int i = 0; i < 10; i++) {
+            if (address[i] != 0) {
+                return address;
+            }
+        }
+        if (address[10] != (byte) 0xFF || address[11] != (byte) 0xFF) {
+            return address;
+        }
+        return new byte[]{address[12], address[13], address[14], address[15]};
+    }
+
+    private static byte[] parseV4(String text) {
+        byte[] address = new byte[4];
+        int part = 0;
+        int value = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '.';
+            if (c == '.') {
+                if (value < 0 || part == 4) {
+                    return null;
+                }
+                address[part++] = (byte) value;
+                value = -1;
+            } else if (c >= '0' && c <= '9') {
+                value = (value < 0 ? 0 : value * 10) + (c - '0');
+                if (value > 255) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        return part == 4 ? address : null;
+    }
+
+    private static byte[] parseV6(String text) {
+        int compression = text.indexOf("::");
+        if (compression >= 0 && text.indexOf("::", compression + 1) >= 0) {
+            return null;
+        }
+
+        int[] head = new int[8];
+        int[] tail = new int[8];
+        int headCount;
+        int tailCount = 0;
+
+        if (compression >= 0) {
+            headCount = parseGroups(text.substring(0, compression), head, 0);
+            tailCount = parseGroups(text.substring(compression + 2), tail, 0);
+            if (headCount < 0 || tailCount < 0 || headCount + tailCount > 7) {
+                return null;
+            }
+        } else {
+            headCount = parseGroups(text, head, 0);
+            if (headCount != 8) {
+                return null;
+            }
+        }
+
+        byte[] address = new byte[16];
+        for (int i = 0; i < headCount; i++) {
+            address[i * 2] = (byte) (head[i] >> 8);
+            address[i * 2 + 1] = (byte) head[i];
+        }
+        for (int i = 0; i < tailCount; i++) {
+            int group = 8 - tailCount + i;
+            address[group * 2] = (byte) (tail[i] >> 8);
+            address[group * 2 + 1] = (byte) tail[i];
+        }
+        return address;
+    }
+
+    // Returns the number of 16-bit groups written, or -1 if the text is malformed
+    private static int parseGroups(String text, int[] groups, int count) {
+        if (text.isEmpty()) {
+            return count;
+        }
+
+        String[] parts = text.split(":", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+
+            if (i == parts.length - 1 && part.indexOf('.') >= 0) {
+                byte[] v4 = parseV4(part);
+                if (v4 == null || count > 6) {
+                    return -1;
+                }
+                groups[count++] = ((v4[0] & 0xFF) << 8) | (v4[1] & 0xFF);
+                groups[count++] = ((v4[2] & 0xFF) << 8) | (v4[3] & 0xFF);
+                continue;
+            }
+
+            if (part.isEmpty() || part.length() > 4 || count == 8) {
+                return -1;
+            }
+
+            int value = 0;
+            for (int j = 0; j < part.length(); j++) {
+                int digit = Character.digit(part.charAt(j), 16);
+                if (digit < 0) {
+                    return -1;
+                }
+                value = (value << 4) | digit;
+            }
+            groups[count++] = value;
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,222 @@
+package dev.insanmiy.trueban.ip;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of address ranges held as sorted, merged intervals in primitive arrays: 8 bytes per IPv4
+ * interval and 32 bytes per IPv6 interval. Lookups are a binary search over the starts.
+ * <p>
+ * Bounds are stored with the sign bit flipped so that signed comparison orders them as unsigned values.
+ */
+public final class IpIntervalSet {
+
+    private final int[] v4Starts;
+    private final int[] v4Ends;
+    private final long[] v6StartHi;
+    private final long[] v6StartLo;
+    private final long[] v6EndHi;
+    private final long[] v6EndLo;
+
+    private IpIntervalSet(int[] v4Starts, int[] v4Ends, long[] v6StartHi, long[] v6StartLo, long[] v6EndHi, long[] v6EndLo) {
+        this.v4Starts = v4Starts;
+        this.v4Ends = v4Ends;
+        this.v6StartHi = v6StartHi;
+        this.v6StartLo = v6StartLo;
+        this.v6EndHi = v6EndHi;
+        this.v6EndLo = v6EndLo;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean contains(byte[] address) {
+        if (address == null) {
+            return false;
+        }
+        if (address.length == 4) {
+            return containsV4(flip(readInt(address)));
+        }
+        if (address.length == 16) {
+            return containsV6(flip(readLong(address, 0)), flip(readLong(address, 8)));
+        }
+        return false;
+    }
+
+    public int intervalCount() {
+        return v4Starts.length + v6StartHi.length;
+    }
+
+    private boolean containsV4(int key) {
+        int low = 0;
+        int high = v4Starts.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (v4Starts[mid] <= key) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return candidate >= 0 && key <= v4Ends[candidate];
+    }
+
+    private boolean containsV6(long hi, long lo) {
+        int low = 0;
+        int high = v6StartHi.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (compare(v6StartHi[mid], v6StartLo[mid], hi, lo) <= 0) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return candidate >= 0 && compare(hi, lo, v6EndHi[candidate], v6EndLo[candidate]) <= 0;
+    }
+
+    private static int compare(long aHi, long aLo, long bHi, long bLo) {
+        return aHi != bHi ? Long.compare(aHi, bHi) : Long.compare(aLo, bLo);
+    }
+
+    private static int flip(int value) {
+        return value ^ Integer.MIN_VALUE;
+    }
+
+    private static long flip(long value) {
+        return value ^ Long.MIN_VALUE;
+    }
+
+    private static int readInt(byte[] bytes) {
+        return ((bytes[0] & 0xFF) << 24) | ((bytes[1] & 0xFF) << 16) | ((bytes[2] & 0xFF) << 8) | (bytes[3] & 0xFF);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Collects ranges in any order; {@link #build()} sorts them and merges overlapping or adjacent intervals.
+     */
+    public static final class Builder {
+
+        // IPv4 intervals packed as (start << 32 | end) over unsigned values, so sorting the longs sorts by start
+        private long[] v4 = new long[1024];
+        private int v4Count;
+        private long[] v6 = new long[1024];
+        private int v6Count;
+
+        private Builder() {
+        }
+
+        public Builder add(CidrRange range) {
+            byte[] network = range.networkBytes();
+            int hostBits = network.length * 8 - range.getPrefixLength();
+
+            if (network.length == 4) {
+                long start = readInt(network) & 0xFFFFFFFFL;
+                long end = start | (hostBits == 32 ? 0xFFFFFFFFL : (1L << hostBits) - 1);
+                if (v4Count == v4.length) {
+                    v4 = Arrays.copyOf(v4, v4.length * 2);
+                }
+                v4[v4Count++] = (start << 32 | end) ^ Long.MIN_VALUE;
+            } else {
+                long startHi = readLong(network, 0);
+                long startLo = readLong(network, 8);
+                long endHi = startHi;
+                long endLo = startLo;
+                if (hostBits >= 64) {
+                    endLo = -1L;
+                    endHi |= hostBits == 128 ? -1L : (1L << (hostBits - 64)) - 1;
+                } else if (hostBits > 0) {
+                    endLo |= (1L << hostBits) - 1;
+                }
+                if (v6Count * 4 == v6.length) {
+                    v6 = Arrays.copyOf(v6, v6.length * 2);
+                }
+                v6[v6Count * 4] = flip(startHi);
+                v6[v6Count * 4 + 1] = flip(startLo);
+                v6[v6Count * 4 + 2] = flip(endHi);
+                v6[v6Count * 4 + 3] = flip(endLo);
+                v6Count++;
+            }
+            return this;
+        }
+
+        public IpIntervalSet build() {
+            long[] sortedV4 = Arrays.copyOf(v4, v4Count);
+            Arrays.sort(sortedV4);
+
+            int[] starts = new int[v4Count];
+            int[] ends = new int[v4Count];
+            int count = 0;
+            for (long packed : sortedV4) {
+                long unpacked = packed ^ Long.MIN_VALUE;
+                long start = unpacked >>> 32;
+                long end = unpacked & 0xFFFFFFFFL;
+                if (count > 0 && start <= (flip(ends[count - 1]) & 0xFFFFFFFFL) + 1) {
+                    if (end > (flip(ends[count - 1]) & 0xFFFFFFFFL)) {
+                        ends[count - 1] = flip((int) end);
+                    }
+                    continue;
+                }
+                starts[count] = flip((int) start);
+                ends[count] = flip((int) end);
+                count++;
+            }
+
+            Integer[] order = new Integer[v6Count];
+            for (int i = 0; i < v6Count; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> compare(v6[a * 4], v6[a * 4 + 1], v6[b * 4], v6[b * 4 + 1]));
+
+            long[] startHi = new long[v6Count];
+            long[] startLo = new long[v6Count];
+            long[] endHi = new long[v6Count];
+            long[] endLo = new long[v6Count];
+            int count6 = 0;
+            for (int index : order) {
+                long sHi = v6[index * 4];
+                long sLo = v6[index * 4 + 1];
+                long eHi = v6[index * 4 + 2];
+                long eLo = v6[index * 4 + 3];
+                if (count6 > 0 && isAdjacentOrOverlapping(endHi[count6 - 1], endLo[count6 - 1], sHi, sLo)) {
+                    if (compare(eHi, eLo, endHi[count6 - 1], endLo[count6 - 1]) > 0) {
+                        endHi[count6 - 1] = eHi;
+                        endLo[count6 - 1] = eLo;
+                    }
+                    continue;
+                }
+                startHi[count6] = sHi;
+                startLo[count6] = sLo;
+                endHi[count6] = eHi;
+                endLo[count6] = eLo;
+                count6++;
+            }
+
+            return new IpIntervalSet(
+                    Arrays.copyOf(starts, count), Arrays.copyOf(ends, count),
+                    Arrays.copyOf(startHi, count6), Arrays.copyOf(startLo, count6),
+                    Arrays.copyOf(endHi, count6), Arrays.copyOf(endLo, count6));
+        }
+
+        // True when the next start is at most one past the previous end (all values sign-flipped)
+        private static boolean isAdjacentOrOverlapping(long endHi, long endLo, long startHi, long startLo) {
+            if (compare(startHi, startLo, endHi, endLo) <= 0) {
+                return true;
+            }
+            long nextLo = endLo + 1;
+            long nextHi = nextLo == Long.MIN_VALUE ? endHi + 1 : endHi;
+            return startHi == nextHi && startLo == nextLo;
+        }
+    }
+}
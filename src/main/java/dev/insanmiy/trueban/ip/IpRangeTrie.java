@@ -0,0 +1,240 @@
+package dev.insanmiy.trueban.ip;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Path-compressed binary radix trie of CIDR ranges, one tree per address family. A lookup walks at most
+ * 32 (IPv4) or 128 (IPv6) bits regardless of how many ranges are stored.
+ */
+public class IpRangeTrie<T> {
+
+    private static final class Node<T> {
+        final byte[] bits;
+        final int length;
+        Node<T> zero;
+        Node<T> one;
+        List<T> values;
+
+        Node(byte[] bits, int length) {
+            this.bits = bits;
+            this.length = length;
+        }
+
+        boolean hasValues() {
+            return values != null && !values.isEmpty();
+        }
+    }
+
+    private final Node<T> v4Root = new Node<>(new byte[4], 0);
+    private final Node<T> v6Root = new Node<>(new byte[16], 0);
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    public void put(CidrRange range, T value) {
+        byte[] bits = range.networkBytes();
+        int length = range.getPrefixLength();
+
+        lock.writeLock().lock();
+        try {
+            Node<T> node = root(bits);
+            while (true) {
+                if (node.length == length) {
+                    if (node.values == null) {
+                        node.values = new ArrayList<>(1);
+                    }
+                    node.values.add(value);
+                    size++;
+                    return;
+                }
+
+                boolean one = bit(bits, node.length);
+                Node<T> child = one ? node.one : node.zero;
+                if (child == null) {
+                    Node<T> leaf = new Node<>(bits, length);
+                    leaf.values = new ArrayList<>(1);
+                    leaf.values.add(value);
+                    setChild(node, one, leaf);
+                    size++;
+                    return;
+                }
+
+                int common = commonPrefix(bits, length, child.bits, child.length);
+                if (common == child.length) {
+                    node = child;
+                    continue;
+                }
+
+                // The new range diverges inside the child's compressed edge: split the edge at the common prefix
+                Node<T> split = new Node<>(CidrRange.of(bits, common).networkBytes(), common);
+                setChild(split, bit(child.bits, common), child);
+                setChild(node, one, split);
+                node = split;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(CidrRange range, Predicate<T> matcher) {
+        lock.writeLock().lock();
+        try {
+            Node<T> root = root(range.networkBytes());
+            boolean[] removed = new boolean[1];
+            boolean one = bit(range.networkBytes(), 0);
+            if (range.getPrefixLength() == 0) {
+                removed[0] = removeValues(root, matcher);
+            } else {
+                setChild(root, one, remove(one ? root.one : root.zero, range.networkBytes(), range.getPrefixLength(), matcher, removed));
+            }
+            return removed[0];
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the values stored for exactly this range.
+     */
+    public List<T> getExact(CidrRange range) {
+        byte[] bits = range.networkBytes();
+        int length = range.getPrefixLength();
+
+        lock.readLock().lock();
+        try {
+            Node<T> node = root(bits);
+            while (node != null) {
+                if (node.length == length) {
+                    return node.hasValues() ? new ArrayList<>(node.values) : Collections.emptyList();
+                }
+                node = bit(bits, node.length) ? node.one : node.zero;
+                if (node != null && (node.length > length || commonPrefix(bits, length, node.bits, node.length) < node.length)) {
+                    return Collections.emptyList();
+                }
+            }
+            return Collections.emptyList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns every value whose range contains {@code address}, most specific range first.
+     */
+    public List<T> findAll(byte[] address) {
+        List<T> matches = new ArrayList<>();
+        if (address == null || (address.length != 4 && address.length != 16)) {
+            return matches;
+        }
+
+        int width = address.length * 8;
+        lock.readLock().lock();
+        try {
+            Node<T> node = root(address);
+            while (node != null) {
+                if (node.hasValues()) {
+                    matches.addAll(0, node.values);
+                }
+                if (node.length == width) {
+                    break;
+                }
+                node = bit(address, node.length) ? node.one : node.zero;
+                if (node != null && commonPrefix(address, width, node.bits, node.length) < node.length) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            v4Root.zero = v4Root.one = null;
+            v4Root.values = null;
+            v6Root.zero = v6Root.one = null;
+            v6Root.values = null;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Returns the node that should replace this one after the removal, collapsing empty pass-through nodes
+    private Node<T> remove(Node<T> node, byte[] bits, int length, Predicate<T> matcher, boolean[] removed) {
+        if (node == null || node.length > length || commonPrefix(bits, length, node.bits, node.length) < node.length) {
+            return node;
+        }
+
+        if (node.length == length) {
+            removed[0] = removeValues(node, matcher);
+        } else {
+            boolean one = bit(bits, node.length);
+            setChild(node, one, remove(one ? node.one : node.zero, bits, length, matcher, removed));
+        }
+
+        if (node.hasValues()) {
+            return node;
+        }
+        if (node.zero == null) {
+            return node.one;
+        }
+        if (node.one == null) {
+            return node.zero;
+        }
+        return node;
+    }
+
+    private boolean removeValues(Node<T> node, Predicate<T> matcher) {
+        if (node.values == null) {
+            return false;
+        }
+        int before = node.values.size();
+        node.values.removeIf(matcher);
+        size -= before - node.values.size();
+        if (node.values.isEmpty()) {
+            node.values = null;
+        }
+        return before != (node.values == null ? 0 : node.values.size());
+    }
+
+    private Node<T> root(byte[] bits) {
+        return bits.length == 4 ? v4Root : v6Root;
+    }
+
+    private static <T> void setChild(Node<T> parent, boolean one, Node<T> child) {
+        if (one) {
+            parent.one = child;
+        } else {
+            parent.zero = child;
+        }
+    }
+
+    private static boolean bit(byte[] bits, int index) {
+        return (bits[index >> 3] & (0x80 >> (index & 7))) != 0;
+    }
+
+    private static int commonPrefix(byte[] a, int aLength, byte[] b, int bLength) {
+        int max = Math.min(aLength, bLength);
+        int common = 0;
+        while (common < max && bit(a, common) == bit(b, common)) {
+            common++;
+        }
+        return common;
+    }
+}
@@ -0,0 +1,19 @@
+package dev.insanmiy.trueban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.insanmiy.trueban.ExpirySweep")
+@Label("Expiry Sweep")
+@Category({"TrueBan", "Punishments"})
+@Description("Periodic sweep that expires overdue punishments in storage")
+@StackTrace(false)
+public class ExpirySweepEvent extends Event {
+
+    @Label("Expired")
+    public int expired;
+}
@@ -0,0 +1,25 @@
+package dev.insanmiy.trueban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.insanmiy.trueban.LoginVerdict")
+@Label("Login Verdict")
+@Category({"TrueBan", "Punishments"})
+@Description("Ban, IP ban and blocklist check for a connecting player, from lookup to verdict")
+@StackTrace(false)
+public class LoginVerdictEvent extends Event {
+
+    @Label("Player UUID")
+    public String player;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Punishment Type")
+    public String punishmentType;
+}
@@ -0,0 +1,22 @@
+package dev.insanmiy.trueban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.insanmiy.trueban.MessageRender")
+@Label("Message Render")
+@Category({"TrueBan", "Messages"})
+@Description("Rendering of a configured message with its placeholders")
+@StackTrace(false)
+public class MessageRenderEvent extends Event {
+
+    @Label("Path")
+    public String path;
+
+    @Label("Length")
+    public int length;
+}
@@ -0,0 +1,26 @@
+package dev.insanmiy.trueban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.insanmiy.trueban.MuteCheck")
+@Label("Mute Check")
+@Category({"TrueBan", "Punishments"})
+@Description("Mute check for a chat message")
+@StackTrace(false)
+public class MuteCheckEvent extends Event {
+
+    @Label("Player UUID")
+    public String player;
+
+    @Label("Muted")
+    public boolean muted;
+
+    @Label("Blocked")
+    @Description("The message was cancelled; false for bypassing or expired mutes")
+    public boolean blocked;
+}
@@ -0,0 +1,26 @@
+package dev.insanmiy.trueban.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("dev.insanmiy.trueban.StorageCall")
+@Label("Storage Call")
+@Category({"TrueBan", "Storage"})
+@Description("StorageManager call from invocation until its future completed; committed on the completing thread")
+@StackTrace(false)
+public class StorageCallEvent extends Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Rows")
+    @Description("Rows returned by a read, or rows written by a write")
+    public int rows;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
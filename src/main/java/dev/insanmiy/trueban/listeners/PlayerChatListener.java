@@ -1,15 +1,14 @@
 package dev.insanmiy.trueban.listeners;
 
 import dev.insanmiy.trueban.TrueBan;
-import dev.insanmiy.trueban.punishment.Punishment;
-import dev.insanmiy.trueban.punishment.PunishmentType;
+import dev.insanmiy.trueban.jfr.MuteCheckEvent;
+import dev.insanmiy.trueban.punishment.MuteState;
 import io.papermc.paper.event.player.AsyncChatEvent;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.UUID;
 
 public class PlayerChatListener implements Listener {
 
@@ -21,49 +20,31 @@ public class PlayerChatListener implements Listener {
 
     @EventHandler(priority = EventPriority.HIGHEST)
     public void onPlayerChat(AsyncChatEvent event) {
-        if (event.getPlayer().hasPermission("trueban.bypass")) {
-            return;
-        }
-
         checkMute(event);
     }
 
     private void checkMute(AsyncChatEvent event) {
-        plugin.getPunishmentManager().getActivePunishments(event.getPlayer().getUniqueId())
-                .whenComplete((punishments, ex) -> {
-                    if (ex != null) {
-                        plugin.getLogger().warning("Error checking mutes: " + ex.getMessage());
-                        return;
-                    }
+        MuteCheckEvent check = new MuteCheckEvent();
+        check.begin();
 
-                    for (Punishment p : punishments) {
-                        if ((p.getType() == PunishmentType.MUTE || p.getType() == PunishmentType.TEMPMUTE) && p.isActive()) {
-                            event.setCancelled(true);
-                            getMuteMessage(p).whenComplete((message, msgEx) -> {
-                                if (msgEx == null) {
-                                    event.getPlayer().sendMessage(message);
-                                }
-                            });
-                            return;
-                        }
-                    }
-                });
-    }
+        UUID uuid = event.getPlayer().getUniqueId();
+        MuteState mute = plugin.getPunishmentManager().getMuteState(uuid);
+        long now = System.currentTimeMillis();
+        boolean blocked = mute != null && mute.isActive(now) && !event.getPlayer().hasPermission("trueban.bypass");
 
-    private java.util.concurrent.CompletableFuture<String> getMuteMessage(Punishment punishment) {
-        return java.util.concurrent.CompletableFuture.supplyAsync(() -> {
-            Map<String, String> placeholders = new HashMap<>();
-            placeholders.put("player", punishment.getPlayerName());
-            placeholders.put("reason", punishment.getReason());
-            placeholders.put("operator", punishment.getOperator());
+        if (blocked) {
+            event.setCancelled(true);
+            plugin.getMetrics().recordBlockedChat();
 
-            if (punishment.getType() == PunishmentType.TEMPMUTE) {
-                placeholders.put("duration", formatDuration(punishment.getExpiresAt() - System.currentTimeMillis()));
-                return plugin.getMessageManager().getMessage("mute.tempmuted_message", placeholders);
-            } else {
-                return plugin.getMessageManager().getMessage("mute.muted_message", placeholders);
-            }
-        });
+            event.getPlayer().sendMessage(mute.render(mute.isTemporary() ? formatDuration(mute.getExpiresAt() - now) : null));
+        }
+
+        if (check.shouldCommit()) {
+            check.player = uuid.toString();
+            check.muted = mute != null;
+            check.blocked = blocked;
+            check.commit();
+        }
     }
 
     private String formatDuration(long milliseconds) {
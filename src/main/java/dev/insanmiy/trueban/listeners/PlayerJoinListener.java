@@ -0,0 +1,25 @@
+package dev.insanmiy.trueban.listeners;
+
+import dev.insanmiy.trueban.TrueBan;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+
+public class PlayerJoinListener implements Listener {
+
+    private final TrueBan plugin;
+
+    public PlayerJoinListener(TrueBan plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        String ipAddress = player.getAddress() != null ? player.getAddress().getAddress().getHostAddress() : null;
+
+        plugin.getPunishmentManager().recordPlayer(player.getUniqueId(), player.getName(), ipAddress, System.currentTimeMillis());
+    }
+}
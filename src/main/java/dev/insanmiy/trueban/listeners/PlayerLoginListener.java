@@ -1,90 +1,130 @@
 package dev.insanmiy.trueban.listeners;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.blocklist.Blocklist;
+import dev.insanmiy.trueban.jfr.LoginVerdictEvent;
+import dev.insanmiy.trueban.metrics.PluginMetrics.LoginOutcome;
 import dev.insanmiy.trueban.punishment.Punishment;
 import dev.insanmiy.trueban.punishment.PunishmentType;
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerLoginEvent;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PlayerLoginListener implements Listener {
 
     private final TrueBan plugin;
+    private final Map<UUID, Punishment> deferredVerdicts = new ConcurrentHashMap<>();
+    private final Map<UUID, Blocklist> deferredBlocklists = new ConcurrentHashMap<>();
+    private final Map<String, Component> blocklistScreens = new ConcurrentHashMap<>();
 
     public PlayerLoginListener(TrueBan plugin) {
         this.plugin = plugin;
     }
 
     @EventHandler(priority = EventPriority.HIGHEST)
-    public void onPlayerLogin(PlayerLoginEvent event) {
-        if (event.getPlayer().hasPermission("trueban.bypass")) {
+    public void onAsyncPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
             return;
         }
 
-        checkBan(event);
-        checkIPBan(event);
-    }
+        LoginVerdictEvent check = new LoginVerdictEvent();
+        check.begin();
 
-    private void checkBan(PlayerLoginEvent event) {
-        try {
-            List<Punishment> punishments = plugin.getPunishmentManager()
-                    .getActivePunishments(event.getPlayer().getUniqueId()).join();
+        UUID uuid = event.getUniqueId();
+        String ipAddress = event.getAddress().getHostAddress();
+        // A connection that dropped before login must not leave its verdict behind for the next attempt
+        deferredVerdicts.remove(uuid);
+        deferredBlocklists.remove(uuid);
 
-            for (Punishment p : punishments) {
-                if ((p.getType() == PunishmentType.BAN || p.getType() == PunishmentType.TEMPBAN) && p.isActive()) {
-                    event.disallow(PlayerLoginEvent.Result.KICK_BANNED, getBanMessage(p));
-                    return;
-                }
-            }
-        } catch (Exception ex) {
-            plugin.getLogger().warning("Error checking bans: " + ex.getMessage());
+        Punishment verdict = plugin.getPunishmentManager().getLoginVerdict(uuid, ipAddress);
+        if (verdict == null) {
+            checkBlocklists(event, uuid, ipAddress, check);
+            return;
+        }
+
+        // Permissions are not available before login, so the verdict is applied on the main thread after the bypass check
+        deferredVerdicts.put(uuid, verdict);
+        commitCheck(check, uuid, "deferred", verdict.getType().name());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onAsyncPreLoginResult(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            deferredVerdicts.remove(event.getUniqueId());
+            deferredBlocklists.remove(event.getUniqueId());
         }
     }
 
-    private void checkIPBan(PlayerLoginEvent event) {
-        String ipAddress = event.getAddress().getHostAddress();
-        try {
-            List<Punishment> punishments = plugin.getStorageManager().getPunishmentsByIP(ipAddress).join();
+    @EventHandler(priority = EventPriority.HIGHEST)
+    public void onPlayerLogin(PlayerLoginEvent event) {
+        UUID uuid = event.getPlayer().getUniqueId();
+        Punishment deferred = deferredVerdicts.remove(uuid);
+        Blocklist deferredBlocklist = deferredBlocklists.remove(uuid);
 
-            for (Punishment p : punishments) {
-                if (p.getType() == PunishmentType.IPBAN && p.isActive()) {
+        // Logins without a deferred verdict were already counted before login
+        boolean counted = deferred == null && deferredBlocklist == null;
 
-                    event.disallow(PlayerLoginEvent.Result.KICK_BANNED, getIPBanMessage(p));
-                    return;
-                }
+        if (event.getPlayer().hasPermission("trueban.bypass")) {
+            if (!counted) {
+                plugin.getMetrics().recordLogin(LoginOutcome.BYPASSED);
             }
-        } catch (Exception ex) {
-            plugin.getLogger().warning("Error checking IP bans: " + ex.getMessage());
+            return;
+        }
+
+        if (deferred != null && deferred.isActive()) {
+            event.disallow(PlayerLoginEvent.Result.KICK_BANNED, getVerdictMessage(deferred));
+            plugin.getMetrics().recordLogin(LoginOutcome.BANNED);
+        } else if (deferredBlocklist != null) {
+            event.disallow(PlayerLoginEvent.Result.KICK_BANNED, getBlocklistMessage(deferredBlocklist));
+            plugin.getMetrics().recordLogin(LoginOutcome.BLOCKLISTED);
+        } else if (!counted) {
+            plugin.getMetrics().recordLogin(LoginOutcome.ALLOWED);
+        }
+    }
+
+    private void checkBlocklists(AsyncPlayerPreLoginEvent event, UUID uuid, String ipAddress, LoginVerdictEvent check) {
+        Blocklist blocklist = plugin.getBlocklistManager().match(ipAddress);
+        if (blocklist == null) {
+            recordOutcome(check, uuid, LoginOutcome.ALLOWED, null);
+            return;
         }
+
+        deferredBlocklists.put(uuid, blocklist);
+        commitCheck(check, uuid, "deferred", null);
+    }
+
+    private void recordOutcome(LoginVerdictEvent check, UUID uuid, LoginOutcome outcome, String punishmentType) {
+        plugin.getMetrics().recordLogin(outcome);
+        commitCheck(check, uuid, outcome.getKey(), punishmentType);
     }
 
-    private String getBanMessage(Punishment punishment) {
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", punishment.getPlayerName());
-        placeholders.put("uuid", punishment.getPlayerUUID().toString());
-        placeholders.put("reason", punishment.getReason());
-        placeholders.put("operator", punishment.getOperator());
-
-        if (punishment.getType() == PunishmentType.TEMPBAN) {
-            placeholders.put("duration", formatDuration(punishment.getExpiresAt() - System.currentTimeMillis()));
-            placeholders.put("expiration", formatDate(punishment.getExpiresAt()));
-            return plugin.getMessageManager().getMessage("ban.tempban_message", placeholders);
-        } else {
-            return plugin.getMessageManager().getMessage("ban.banned_message", placeholders);
+    private static void commitCheck(LoginVerdictEvent check, UUID uuid, String outcome, String punishmentType) {
+        if (check.shouldCommit()) {
+            check.player = uuid.toString();
+            check.outcome = outcome;
+            check.punishmentType = punishmentType;
+            check.commit();
         }
     }
 
-    private String getIPBanMessage(Punishment punishment) {
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("reason", punishment.getReason());
-        placeholders.put("operator", punishment.getOperator());
-        placeholders.put("ip", punishment.getIpAddress());
-        return plugin.getMessageManager().getMessage("ban.ipban_message", placeholders);
+    private Component getBlocklistMessage(Blocklist blocklist) {
+        return blocklistScreens.computeIfAbsent(blocklist.name(), name -> LegacyComponentSerializer.legacySection()
+                .deserialize(plugin.getMessageManager().getMessage("blocklist.login-denied", "blocklist", name)));
+    }
+
+    private Component getVerdictMessage(Punishment punishment) {
+        String duration = punishment.getType() == PunishmentType.TEMPBAN
+                ? formatDuration(punishment.getExpiresAt() - System.currentTimeMillis())
+                : null;
+        return plugin.getPunishmentManager().getLoginScreen(punishment, duration);
     }
 
     private String formatDuration(long milliseconds) {
@@ -127,8 +167,4 @@ public class PlayerLoginListener implements Listener {
 
         return result.toString();
     }
-
-    private String formatDate(long timestamp) {
-        return new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new java.util.Date(timestamp));
-    }
 }
@@ -0,0 +1,123 @@
+package dev.insanmiy.trueban.listeners;
+
+import com.destroystokyo.paper.event.server.AsyncTabCompleteEvent;
+import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.ip.IpAddresses;
+import dev.insanmiy.trueban.punishment.PunishmentManager;
+import org.bukkit.command.CommandSender;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers first-argument completion for /unban, /history and /ipban from Paper's async tab-complete event,
+ * so lookups never run on the main thread. Commands and arguments it does not handle fall through to the
+ * regular synchronous completers.
+ * <p>
+ * Keystrokes are debounced per sender: while the previous lookup is recent and was not truncated, a longer
+ * prefix is answered by filtering its results instead of looking up again.
+ */
+public class TabCompleteListener implements Listener {
+
+    private static final int MAX_COMPLETIONS = 100;
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    private record LastLookup(String command, String prefix, List<String> results, boolean truncated, long at) {
+    }
+
+    private final TrueBan plugin;
+    private final Map<String, LastLookup> lastLookups = new ConcurrentHashMap<>();
+
+    public TabCompleteListener(TrueBan plugin) {
+        this.plugin = plugin;
+    }
+
+    @EventHandler(priority = EventPriority.NORMAL)
+    public void onAsyncTabComplete(AsyncTabCompleteEvent event) {
+        if (event.isHandled() || !event.isCommand()) {
+            return;
+        }
+
+        String buffer = event.getBuffer();
+        int space = buffer.indexOf(' ');
+        // Only the first argument is completed here
+        if (space < 0 || buffer.indexOf(' ', space + 1) >= 0) {
+            return;
+        }
+
+        String label = buffer.substring(buffer.startsWith("/") ? 1 : 0, space).toLowerCase(Locale.ROOT);
+        int namespace = label.indexOf(':');
+        if (namespace >= 0) {
+            if (!label.substring(0, namespace).equals("trueban")) {
+                return;
+            }
+            label = label.substring(namespace + 1);
+        }
+
+        String input = buffer.substring(space + 1).toLowerCase(Locale.ROOT);
+        String permission = switch (label) {
+            case "unban" -> "trueban.unban";
+            case "history" -> "trueban.history";
+            // Player names for /ipban must be online, which the synchronous completer covers
+            case "ipban" -> IpAddresses.looksLikeAddress(input) ? "trueban.ipban" : null;
+            default -> null;
+        };
+        if (permission == null) {
+            return;
+        }
+
+        CommandSender sender = event.getSender();
+        if (!sender.hasPermission(permission)) {
+            return;
+        }
+
+        event.setCompletions(complete(sender.getName(), label, input));
+        event.setHandled(true);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        lastLookups.remove(event.getPlayer().getName());
+    }
+
+    private List<String> complete(String senderName, String command, String input) {
+        long now = System.currentTimeMillis();
+        LastLookup last = lastLookups.get(senderName);
+        if (last != null && !last.truncated() && now - last.at() < DEBOUNCE_MILLIS
+                && last.command().equals(command) && input.startsWith(last.prefix())
+                && IpAddresses.looksLikeAddress(last.prefix()) == IpAddresses.looksLikeAddress(input)) {
+            List<String> narrowed = new ArrayList<>();
+            for (String candidate : last.results()) {
+                if (candidate.toLowerCase(Locale.ROOT).startsWith(input)) {
+                    narrowed.add(candidate);
+                }
+            }
+            return narrowed;
+        }
+
+        PunishmentManager punishments = plugin.getPunishmentManager();
+        List<String> results = new ArrayList<>();
+        boolean truncated = false;
+
+        if (!command.equals("ipban")) {
+            List<String> names = punishments.completePlayerNames(input, MAX_COMPLETIONS);
+            truncated = names.size() >= MAX_COMPLETIONS;
+            results.addAll(names);
+        }
+        if (!command.equals("history") && IpAddresses.looksLikeAddress(input)) {
+            List<String> ips = punishments.completeBannedIps(input, MAX_COMPLETIONS);
+            truncated |= ips.size() >= MAX_COMPLETIONS;
+            results.addAll(ips);
+        }
+
+        lastLookups.put(senderName, new LastLookup(command, input, results, truncated, now));
+        return results;
+    }
+}
@@ -0,0 +1,213 @@
+package dev.insanmiy.trueban.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.config.ConfigManager;
+import dev.insanmiy.trueban.punishment.PunishmentManager;
+import dev.insanmiy.trueban.storage.InstrumentedStorage;
+import dev.insanmiy.trueban.storage.MysqlStorage;
+import dev.insanmiy.trueban.storage.StorageManager;
+import dev.insanmiy.trueban.storage.StorageMetrics;
+import dev.insanmiy.trueban.storage.StorageOperation;
+import dev.insanmiy.trueban.util.LruCache;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Serves the plugin's metrics in Prometheus text format from the JDK's built-in HTTP server. Requests are
+ * handled on a dedicated thread and only read counters and histograms, so scraping never waits on the main
+ * thread or on storage.
+ */
+public class MetricsServer {
+
+    private final TrueBan plugin;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsServer(TrueBan plugin) {
+        this.plugin = plugin;
+    }
+
+    public void start() throws IOException {
+        ConfigManager config = plugin.getConfigManager();
+        String address = config.getString("metrics.bind-address", "127.0.0.1");
+        int port = config.getInt("metrics.port", 9464);
+        String path = config.getString("metrics.path", "/metrics");
+
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "TrueBan-Metrics");
+            t.setDaemon(true);
+            return t;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        server.createContext(path, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    public InetSocketAddress getAddress() {
+        return server != null ? server.getAddress() : null;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!method.equals("GET") && !method.equals("HEAD")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            byte[] body = method.equals("GET") ? scrape().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            exchange.getResponseHeaders().set("Content-Type", PrometheusWriter.CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length > 0 ? body.length : -1);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Failed to serve metrics: " + e.getMessage());
+        }
+    }
+
+    String scrape() {
+        PrometheusWriter writer = new PrometheusWriter();
+        writeStorage(writer);
+        writePunishments(writer);
+        writeCaches(writer);
+        writePool(writer);
+        return writer.toString();
+    }
+
+    private void writeStorage(PrometheusWriter writer) {
+        StorageMetrics metrics = plugin.getStorageManager().getMetrics();
+        Map<StorageOperation, StorageMetrics.OperationStats> operations = metrics.getOperations();
+
+        writer.family("trueban_storage_call_seconds", "histogram", "Storage call latency from call to completion.");
+        operations.forEach((operation, stats) -> {
+            if (stats.getCalls() > 0) {
+                writer.histogram("trueban_storage_call_seconds", stats.getTotal(), "operation", operation.getKey());
+            }
+        });
+
+        writer.family("trueban_storage_call_errors_total", "counter", "Storage calls that completed exceptionally.");
+        operations.forEach((operation, stats) -> {
+            if (stats.getCalls() > 0) {
+                writer.sample("trueban_storage_call_errors_total", stats.getErrors(), "operation", operation.getKey());
+            }
+        });
+
+        writer.family("trueban_storage_queue_wait_seconds", "histogram", "Time storage tasks spent queued before running.");
+        operations.forEach((operation, stats) -> {
+            if (stats.getQueueWait().getCount() > 0) {
+                writer.histogram("trueban_storage_queue_wait_seconds", stats.getQueueWait(), "operation", operation.getKey());
+            }
+        });
+
+        writer.family("trueban_storage_execution_seconds", "histogram", "Time storage tasks spent running.");
+        operations.forEach((operation, stats) -> {
+            if (stats.getExecution().getCount() > 0) {
+                writer.histogram("trueban_storage_execution_seconds", stats.getExecution(), "operation", operation.getKey());
+            }
+        });
+
+        writer.family("trueban_storage_in_flight", "gauge", "Storage calls that have not completed yet.")
+                .sample("trueban_storage_in_flight", metrics.getInFlight());
+        writer.family("trueban_storage_pending_writes", "gauge", "Punishment writes waiting for the next batch flush.")
+                .sample("trueban_storage_pending_writes", metrics.getPendingWrites());
+
+        var executors = metrics.getExecutorStats();
+        writer.family("trueban_storage_executor_queued", "gauge", "Tasks queued on a storage executor.");
+        executors.forEach(e -> writer.sample("trueban_storage_executor_queued", e.queued(), "executor", e.name()));
+        writer.family("trueban_storage_executor_active", "gauge", "Tasks running on a storage executor.");
+        executors.forEach(e -> writer.sample("trueban_storage_executor_active", e.active(), "executor", e.name()));
+        writer.family("trueban_storage_executor_completed_total", "counter", "Tasks completed by a storage executor.");
+        executors.forEach(e -> writer.sample("trueban_storage_executor_completed_total", e.completed(), "executor", e.name()));
+    }
+
+    private void writePunishments(PrometheusWriter writer) {
+        PluginMetrics metrics = plugin.getMetrics();
+
+        writer.family("trueban_login_verdicts_total", "counter", "Login checks by outcome.");
+        for (PluginMetrics.LoginOutcome outcome : PluginMetrics.LoginOutcome.values()) {
+            writer.sample("trueban_login_verdicts_total", metrics.getLoginVerdicts(outcome), "outcome", outcome.getKey());
+        }
+
+        writer.family("trueban_chat_messages_blocked_total", "counter", "Chat messages blocked because the sender is muted.")
+                .sample("trueban_chat_messages_blocked_total", metrics.getBlockedChatMessages());
+
+        writer.family("trueban_expiry_sweep_seconds", "histogram", "Duration of the periodic expiry sweep.")
+                .histogram("trueban_expiry_sweep_seconds", metrics.getExpirySweeps());
+        writer.family("trueban_expired_punishments_total", "counter", "Punishments expired by the periodic sweep.")
+                .sample("trueban_expired_punishments_total", metrics.getSweptPunishments());
+
+        PunishmentManager punishments = plugin.getPunishmentManager();
+        if (punishments != null) {
+            writer.family("trueban_active_punishments", "gauge", "Active punishments held in memory.")
+                    .sample("trueban_active_punishments", punishments.getActivePunishmentCount());
+        }
+    }
+
+    private void writeCaches(PrometheusWriter writer) {
+        PunishmentManager punishments = plugin.getPunishmentManager();
+        if (punishments == null) {
+            return;
+        }
+
+        Map<String, LruCache<?, ?>> caches = punishments.getCaches();
+        writer.family("trueban_cache_hits_total", "counter", "Cache lookups answered from memory.");
+        caches.forEach((name, cache) -> writer.sample("trueban_cache_hits_total", cache.getHits(), "cache", name));
+        writer.family("trueban_cache_misses_total", "counter", "Cache lookups that went to storage.");
+        caches.forEach((name, cache) -> writer.sample("trueban_cache_misses_total", cache.getMisses(), "cache", name));
+        writer.family("trueban_cache_hit_ratio", "gauge", "Share of cache lookups answered from memory since startup.");
+        caches.forEach((name, cache) -> {
+            long hits = cache.getHits();
+            long lookups = hits + cache.getMisses();
+            writer.sample("trueban_cache_hit_ratio", lookups == 0 ? 0 : (double) hits / lookups, "cache", name);
+        });
+        writer.family("trueban_cache_entries", "gauge", "Entries currently cached.");
+        caches.forEach((name, cache) -> writer.sample("trueban_cache_entries", cache.size(), "cache", name));
+    }
+
+    private void writePool(PrometheusWriter writer) {
+        StorageManager storage = plugin.getStorageManager();
+        if (storage instanceof InstrumentedStorage instrumented) {
+            storage = instrumented.getDelegate();
+        }
+        if (!(storage instanceof MysqlStorage mysql)) {
+            return;
+        }
+
+        HikariPoolMXBean pool = mysql.getPoolStats();
+        if (pool == null) {
+            return;
+        }
+
+        writer.family("trueban_mysql_pool_connections", "gauge", "MySQL pool connections by state.")
+                .sample("trueban_mysql_pool_connections", pool.getActiveConnections(), "state", "active")
+                .sample("trueban_mysql_pool_connections", pool.getIdleConnections(), "state", "idle");
+        writer.family("trueban_mysql_pool_pending_threads", "gauge", "Threads waiting for a MySQL pool connection.")
+                .sample("trueban_mysql_pool_pending_threads", pool.getThreadsAwaitingConnection());
+    }
+}
@@ -0,0 +1,68 @@
+package dev.insanmiy.trueban.metrics;
+
+import dev.insanmiy.trueban.util.LatencyHistogram;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the plugin's own hot paths, next to the per-backend {@link dev.insanmiy.trueban.storage.StorageMetrics}.
+ * Everything here is updated with single atomic operations and can be read from any thread.
+ */
+public final class PluginMetrics {
+
+    public enum LoginOutcome {
+        ALLOWED,
+        BANNED,
+        BLOCKLISTED,
+        BYPASSED;
+
+        private final String key = name().toLowerCase(Locale.ROOT);
+
+        public String getKey() {
+            return key;
+        }
+    }
+
+    private final Map<LoginOutcome, LongAdder> loginVerdicts = new EnumMap<>(LoginOutcome.class);
+    private final LongAdder blockedChatMessages = new LongAdder();
+    private final LatencyHistogram expirySweeps = new LatencyHistogram();
+    private final LongAdder sweptPunishments = new LongAdder();
+
+    public PluginMetrics() {
+        for (LoginOutcome outcome : LoginOutcome.values()) {
+            loginVerdicts.put(outcome, new LongAdder());
+        }
+    }
+
+    public void recordLogin(LoginOutcome outcome) {
+        loginVerdicts.get(outcome).increment();
+    }
+
+    public void recordBlockedChat() {
+        blockedChatMessages.increment();
+    }
+
+    public void recordExpirySweep(long nanos, int expired) {
+        expirySweeps.record(nanos);
+        sweptPunishments.add(expired);
+    }
+
+    public long getLoginVerdicts(LoginOutcome outcome) {
+        return loginVerdicts.get(outcome).sum();
+    }
+
+    public long getBlockedChatMessages() {
+        return blockedChatMessages.sum();
+    }
+
+    public LatencyHistogram getExpirySweeps() {
+        return expirySweeps;
+    }
+
+    public long getSweptPunishments() {
+        return sweptPunishments.sum();
+    }
+}
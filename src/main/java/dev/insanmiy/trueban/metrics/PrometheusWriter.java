@@ -0,0 +1,98 @@
+package dev.insanmiy.trueban.metrics;
+
+import dev.insanmiy.trueban.util.LatencyHistogram;
+
+import java.math.BigDecimal;
+
+/**
+ * Builds a response in the Prometheus text exposition format (version 0.0.4). Each metric family is started
+ * with {@link #family} and followed by its samples; label values are escaped.
+ */
+final class PrometheusWriter {
+
+    static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Shared by every latency family so buckets line up across operations and servers
+    private static final double[] BUCKET_SECONDS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BUCKET_NANOS = new long[BUCKET_SECONDS.length];
+    private static final String[] BUCKET_LABELS = new String[BUCKET_SECONDS.length + 1];
+
+    static {
+        for (int i = 0; i < BUCKET_SECONDS.length; i++) {
+            BUCKET_NANOS[i] = Math.round(BUCKET_SECONDS[i] * 1e9);
+            BUCKET_LABELS[i] = BigDecimal.valueOf(BUCKET_SECONDS[i]).stripTrailingZeros().toPlainString();
+        }
+        BUCKET_LABELS[BUCKET_SECONDS.length] = "+Inf";
+    }
+
+    private final StringBuilder out = new StringBuilder(16 * 1024);
+
+    PrometheusWriter family(String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        return this;
+    }
+
+    PrometheusWriter sample(String name, double value, String... labels) {
+        out.append(name);
+        if (labels.length > 0) {
+            out.append('{');
+            for (int i = 0; i < labels.length; i += 2) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                out.append(labels[i]).append("=\"");
+                escape(labels[i + 1]);
+                out.append('"');
+            }
+            out.append('}');
+        }
+        out.append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(value);
+        }
+        out.append('\n');
+        return this;
+    }
+
+    /**
+     * Writes {@code histogram} in seconds as cumulative {@code _bucket} samples, {@code _sum} and {@code _count}.
+     * The family must already have been started with type {@code histogram}.
+     */
+    PrometheusWriter histogram(String name, LatencyHistogram histogram, String... labels) {
+        long[] counts = histogram.getCumulativeCounts(BUCKET_NANOS);
+        String[] bucketLabels = new String[labels.length + 2];
+        System.arraycopy(labels, 0, bucketLabels, 0, labels.length);
+        bucketLabels[labels.length] = "le";
+
+        for (int i = 0; i < counts.length; i++) {
+            bucketLabels[labels.length + 1] = BUCKET_LABELS[i];
+            sample(name + "_bucket", counts[i], bucketLabels);
+        }
+        sample(name + "_sum", histogram.getTotalNanos() / 1e9, labels);
+        // Taken from the same snapshot as the buckets, so it always equals the +Inf bucket
+        sample(name + "_count", counts[counts.length - 1], labels);
+        return this;
+    }
+
+    private void escape(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '"' -> out.append("\\\"");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return out.toString();
+    }
+}
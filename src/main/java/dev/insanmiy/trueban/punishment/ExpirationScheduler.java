@@ -0,0 +1,116 @@
+package dev.insanmiy.trueban.punishment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Deadline queue for temporary punishments. A single wake-up is kept scheduled for the earliest
+ * {@code expiresAt}, so nothing runs while no temporary punishment is pending and permanent ones are never visited.
+ */
+public class ExpirationScheduler {
+
+    private final ScheduledExecutorService executor;
+    private final Consumer<List<Punishment>> expiryHandler;
+    private final Logger logger;
+    private final PriorityQueue<Punishment> deadlines = new PriorityQueue<>(Comparator.comparingLong(Punishment::getExpiresAt));
+
+    private ScheduledFuture<?> wakeup;
+    private long wakeupAt = Long.MAX_VALUE;
+
+    public ExpirationScheduler(ScheduledExecutorService executor, Consumer<List<Punishment>> expiryHandler, Logger logger) {
+        this.executor = executor;
+        this.expiryHandler = expiryHandler;
+        this.logger = logger;
+    }
+
+    public synchronized void track(Punishment punishment) {
+        if (punishment.getExpiresAt() == -1) {
+            return;
+        }
+
+        deadlines.add(punishment);
+        reschedule();
+    }
+
+    public synchronized void untrack(Punishment punishment) {
+        if (punishment.getExpiresAt() == -1) {
+            return;
+        }
+
+        deadlines.remove(punishment);
+        reschedule();
+    }
+
+    public synchronized void clear() {
+        deadlines.clear();
+        cancelWakeup();
+    }
+
+    public synchronized int pending() {
+        return deadlines.size();
+    }
+
+    // Caller must hold the monitor
+    private void reschedule() {
+        Punishment next = deadlines.peek();
+        if (next == null) {
+            cancelWakeup();
+            return;
+        }
+
+        long deadline = next.getExpiresAt();
+        if (wakeup != null && !wakeup.isDone() && wakeupAt <= deadline) {
+            return;
+        }
+
+        cancelWakeup();
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        long delay = Math.max(0, deadline - System.currentTimeMillis());
+        wakeupAt = deadline;
+        wakeup = executor.schedule(this::fire, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelWakeup() {
+        if (wakeup != null) {
+            wakeup.cancel(false);
+            wakeup = null;
+        }
+        wakeupAt = Long.MAX_VALUE;
+    }
+
+    private void fire() {
+        List<Punishment> due = new ArrayList<>();
+
+        synchronized (this) {
+            wakeup = null;
+            wakeupAt = Long.MAX_VALUE;
+
+            long now = System.currentTimeMillis();
+            while (!deadlines.isEmpty() && deadlines.peek().getExpiresAt() <= now) {
+                due.add(deadlines.poll());
+            }
+            reschedule();
+        }
+
+        if (due.isEmpty()) {
+            return;
+        }
+
+        try {
+            expiryHandler.accept(due);
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Error while expiring punishments", e);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package dev.insanmiy.trueban.punishment;
+
+import java.util.List;
+
+/**
+ * One page of a player's punishment history, newest first. {@code entries} is empty past the last page.
+ */
+public record HistoryPage(int page, List<Punishment> entries, boolean hasNext) {
+}
@@ -0,0 +1,35 @@
+package dev.insanmiy.trueban.punishment;
+
+import dev.insanmiy.trueban.storage.HistoryCursor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Page start cursors discovered so far for one player, plus the pages that were actually requested.
+ * A page whose start is known costs one keyset query.
+ */
+class HistoryPages {
+
+    private final Map<Integer, HistoryCursor> starts = new HashMap<>(Map.of(1, HistoryCursor.FIRST));
+    private final Map<Integer, HistoryPage> pages = new HashMap<>();
+
+    synchronized HistoryPage get(int page) {
+        return pages.get(page);
+    }
+
+    synchronized void put(HistoryPage page) {
+        pages.put(page.page(), page);
+    }
+
+    /**
+     * Returns the cursor the page starts after, or {@code null} if it is not known yet.
+     */
+    synchronized HistoryCursor start(int page) {
+        return starts.get(page);
+    }
+
+    synchronized void recordStart(int page, HistoryCursor start) {
+        starts.putIfAbsent(page, start);
+    }
+}
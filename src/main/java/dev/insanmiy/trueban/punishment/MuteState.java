@@ -0,0 +1,40 @@
+package dev.insanmiy.trueban.punishment;
+
+import net.kyori.adventure.text.Component;
+
+/**
+ * Chat-path view of an active mute: the expiry as a primitive timestamp and the mute notice rendered once.
+ * Temporary mute notices keep a %duration% slot so only the remaining time is filled in per message.
+ */
+public final class MuteState {
+
+    private final Punishment punishment;
+    private final long expiresAt;
+    private final PunishmentScreen screen;
+
+    public MuteState(Punishment punishment, PunishmentScreen screen) {
+        this.punishment = punishment;
+        this.expiresAt = punishment.getExpiresAt();
+        this.screen = screen;
+    }
+
+    public boolean isActive(long now) {
+        return expiresAt == -1 || now < expiresAt;
+    }
+
+    public boolean isTemporary() {
+        return expiresAt != -1;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public Component render(String duration) {
+        return screen.render(duration);
+    }
+
+    public Punishment getPunishment() {
+        return punishment;
+    }
+}
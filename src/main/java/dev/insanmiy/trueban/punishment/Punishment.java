@@ -4,6 +4,7 @@ import java.util.UUID;
 
 public class Punishment {
 
+    private final long id;
     private final UUID playerUUID;
     private final String playerName;
     private final String ipAddress;
@@ -25,6 +26,25 @@ public class Punishment {
             long expiresAt,
             boolean active
     ) {
+        this(0, playerUUID, playerName, ipAddress, type, reason, operator, createdAt, expiresAt, active);
+    }
+
+    /**
+     * {@code id} is the storage row id, or 0 for a punishment that has not been read back from storage.
+     */
+    public Punishment(
+            long id,
+            UUID playerUUID,
+            String playerName,
+            String ipAddress,
+            PunishmentType type,
+            String reason,
+            String operator,
+            long createdAt,
+            long expiresAt,
+            boolean active
+    ) {
+        this.id = id;
         this.playerUUID = playerUUID;
         this.playerName = playerName;
         this.ipAddress = ipAddress;
@@ -71,6 +91,10 @@ public class Punishment {
         return active && !hasExpired();
     }
 
+    public long getId() {
+        return id;
+    }
+
     public UUID getPlayerUUID() {
         return playerUUID;
     }
@@ -110,7 +134,8 @@ public class Punishment {
     @Override
     public String toString() {
         return "Punishment{" +
-                "playerUUID=" + playerUUID +
+                "id=" + id +
+                ", playerUUID=" + playerUUID +
                 ", playerName='" + playerName + '\'' +
                 ", type=" + type +
                 ", reason='" + reason + '\'' +
@@ -0,0 +1,182 @@
+package dev.insanmiy.trueban.punishment;
+
+import dev.insanmiy.trueban.ip.CidrRange;
+import dev.insanmiy.trueban.ip.IpAddresses;
+import dev.insanmiy.trueban.ip.IpRangeTrie;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-memory index of every active punishment, keyed by player UUID and, for IP bans, by address range.
+ * Player lists are copy-on-write so login and chat lookups never lock.
+ */
+public class PunishmentIndex {
+
+    private final Map<UUID, List<Punishment>> byPlayer = new ConcurrentHashMap<>();
+    private final IpRangeTrie<Punishment> ipBans = new IpRangeTrie<>();
+
+    public void add(Punishment punishment) {
+        byPlayer.compute(punishment.getPlayerUUID(), (uuid, list) -> append(list, punishment));
+
+        CidrRange range = ipBanRange(punishment);
+        if (range != null) {
+            ipBans.remove(range, p -> isSameRecord(p, punishment));
+            ipBans.put(range, punishment);
+        }
+    }
+
+    public void remove(Punishment punishment) {
+        byPlayer.computeIfPresent(punishment.getPlayerUUID(), (uuid, list) -> without(list, punishment));
+
+        CidrRange range = ipBanRange(punishment);
+        if (range != null) {
+            ipBans.remove(range, p -> isSameRecord(p, punishment));
+        }
+    }
+
+    public void clear() {
+        byPlayer.clear();
+        ipBans.clear();
+    }
+
+    public List<Punishment> getActive(UUID playerUUID) {
+        List<Punishment> list = byPlayer.get(playerUUID);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+
+        List<Punishment> active = new ArrayList<>(list.size());
+        for (Punishment p : list) {
+            if (p.isActive()) {
+                active.add(p);
+            }
+        }
+        return active;
+    }
+
+    /**
+     * Returns the active IP bans on exactly this address or CIDR range.
+     */
+    public List<Punishment> getActiveIPBans(String ipAddress) {
+        CidrRange range = CidrRange.parse(ipAddress);
+        if (range == null) {
+            return Collections.emptyList();
+        }
+
+        List<Punishment> list = ipBans.getExact(range);
+        List<Punishment> active = new ArrayList<>(list.size());
+        for (Punishment p : list) {
+            if (p.isActive()) {
+                active.add(p);
+            }
+        }
+        return active;
+    }
+
+    public Punishment findBan(UUID playerUUID) {
+        List<Punishment> list = byPlayer.get(playerUUID);
+        if (list != null) {
+            for (Punishment p : list) {
+                if ((p.getType() == PunishmentType.BAN || p.getType() == PunishmentType.TEMPBAN) && p.isActive()) {
+                    return p;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the most specific active IP ban whose range contains {@code ipAddress}.
+     */
+    public Punishment findIPBan(String ipAddress) {
+        for (Punishment p : ipBans.findAll(IpAddresses.parse(ipAddress))) {
+            if (p.isActive()) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the player's ban, or else the most specific IP ban covering {@code ipAddress}.
+     */
+    public Punishment findLoginVerdict(UUID playerUUID, String ipAddress) {
+        Punishment ban = findBan(playerUUID);
+        return ban != null ? ban : findIPBan(ipAddress);
+    }
+
+    public Punishment findMute(UUID playerUUID) {
+        List<Punishment> list = byPlayer.get(playerUUID);
+        if (list != null) {
+            for (Punishment p : list) {
+                if (p.getType().isMute() && p.isActive()) {
+                    return p;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the indexed instance of the same row as {@code punishment}, or {@code null}.
+     */
+    public Punishment find(Punishment punishment) {
+        List<Punishment> list = byPlayer.get(punishment.getPlayerUUID());
+        if (list != null) {
+            for (Punishment p : list) {
+                if (isSameRecord(p, punishment)) {
+                    return p;
+                }
+            }
+        }
+        return null;
+    }
+
+    public List<Punishment> snapshot() {
+        List<Punishment> all = new ArrayList<>();
+        for (List<Punishment> list : byPlayer.values()) {
+            all.addAll(list);
+        }
+        return all;
+    }
+
+    public int size() {
+        int size = 0;
+        for (List<Punishment> list : byPlayer.values()) {
+            size += list.size();
+        }
+        return size;
+    }
+
+    private static CidrRange ipBanRange(Punishment punishment) {
+        if (punishment.getType() != PunishmentType.IPBAN || punishment.getIpAddress() == null) {
+            return null;
+        }
+        return CidrRange.parse(punishment.getIpAddress());
+    }
+
+    private static List<Punishment> append(List<Punishment> list, Punishment punishment) {
+        if (list == null) {
+            list = new CopyOnWriteArrayList<>();
+        }
+        list.removeIf(p -> isSameRecord(p, punishment));
+        list.add(punishment);
+        return list;
+    }
+
+    private static List<Punishment> without(List<Punishment> list, Punishment punishment) {
+        list.removeIf(p -> isSameRecord(p, punishment));
+        return list.isEmpty() ? null : list;
+    }
+
+    // Rows are identified by (player_uuid, created_at) in both storage backends
+    private static boolean isSameRecord(Punishment a, Punishment b) {
+        return a == b || (a.getCreatedAt() == b.getCreatedAt() && a.getPlayerUUID().equals(b.getPlayerUUID()));
+    }
+}
@@ -1,23 +1,87 @@
 package dev.insanmiy.trueban.punishment;
 
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.jfr.ExpirySweepEvent;
+import dev.insanmiy.trueban.storage.HistoryCursor;
 import dev.insanmiy.trueban.storage.StorageManager;
+import dev.insanmiy.trueban.util.LruCache;
+import dev.insanmiy.trueban.util.PrefixTrie;
+import dev.insanmiy.trueban.util.SingleFlight;
+import net.kyori.adventure.text.Component;
 import org.bukkit.Bukkit;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class PunishmentManager {
 
+    private static final long SYNC_CLOCK_SKEW_MILLIS = 30000;
+    public static final int HISTORY_PAGE_SIZE = 10;
+
     private final TrueBan plugin;
     private final StorageManager storage;
-    private final Map<UUID, List<Punishment>> activePunishments;
+    private final PunishmentIndex activePunishments;
+    private final Map<UUID, MuteState> muteStates;
+    private final ExpirationScheduler expirationScheduler;
+    private final SingleFlight<String, HistoryPage> historyLookups = new SingleFlight<>();
+    private final SingleFlight<String, UUID> nameLookups = new SingleFlight<>();
+    private final LruCache<UUID, HistoryPages> historyCache;
+    private final LruCache<String, Optional<UUID>> nameCache;
+    private final PrefixTrie knownNames = new PrefixTrie();
+    private final PrefixTrie bannedIps = new PrefixTrie();
+    private final Map<Punishment, PunishmentScreen> loginScreens = new ConcurrentHashMap<>();
+    private volatile long lastSyncAt;
 
-    public PunishmentManager(TrueBan plugin, StorageManager storage) {
+    public PunishmentManager(TrueBan plugin, StorageManager storage, ScheduledExecutorService expirationExecutor) {
         this.plugin = plugin;
         this.storage = storage;
-        this.activePunishments = new ConcurrentHashMap<>();
+        this.activePunishments = new PunishmentIndex();
+        this.muteStates = new ConcurrentHashMap<>();
+        this.expirationScheduler = new ExpirationScheduler(expirationExecutor, this::expirePunishments, plugin.getLogger());
+
+        int cacheSize = plugin.getConfigManager().getCacheMaxEntries();
+        long cacheTtlMillis = plugin.getConfigManager().getCacheTtlSeconds() * 1000;
+        this.historyCache = new LruCache<>(cacheSize, cacheTtlMillis);
+        this.nameCache = new LruCache<>(cacheSize, cacheTtlMillis);
+    }
+
+    public CompletableFuture<Integer> loadActivePunishments() {
+        long startedAt = System.currentTimeMillis();
+        return storage.getAllActivePunishments().thenApply(punishments -> {
+            activePunishments.clear();
+            bannedIps.clear();
+            loginScreens.clear();
+            muteStates.clear();
+            expirationScheduler.clear();
+
+            int loaded = 0;
+            List<Punishment> expired = new ArrayList<>();
+            for (Punishment p : punishments) {
+                if (p.isActive()) {
+                    indexPunishment(p);
+                    loaded++;
+                } else {
+                    p.setActive(false);
+                    expired.add(p);
+                }
+            }
+            if (!expired.isEmpty()) {
+                storage.updatePunishments(expired);
+            }
+            this.lastSyncAt = startedAt;
+            return loaded;
+        });
+    }
+
+    public CompletableFuture<Integer> loadKnownPlayerNames() {
+        return storage.getKnownPlayerNames().thenApply(names -> {
+            for (String name : names) {
+                knownNames.add(name);
+            }
+            return knownNames.size();
+        });
     }
 
     public CompletableFuture<Void> addPermanentPunishment(
@@ -46,144 +110,336 @@ public class PunishmentManager {
     }
 
     private CompletableFuture<Void> addPunishment(Punishment punishment) {
+        // IP bans are stored under a placeholder UUID and name, so they are not players
+        if (punishment.getType() != PunishmentType.IPBAN) {
+            recordPlayer(punishment.getPlayerUUID(), punishment.getPlayerName(), punishment.getIpAddress(), punishment.getCreatedAt());
+        }
         return storage.savePunishment(punishment).thenRun(() -> {
-            activePunishments.computeIfAbsent(punishment.getPlayerUUID(), k -> Collections.synchronizedList(new ArrayList<>()))
-                    .add(punishment);
+            indexPunishment(punishment);
+            historyCache.invalidate(punishment.getPlayerUUID());
         });
     }
 
-    public CompletableFuture<Void> removePunishment(UUID playerUUID, PunishmentType type) {
-        return CompletableFuture.runAsync(() -> {
-            List<Punishment> playerPunishments = activePunishments.getOrDefault(playerUUID, new ArrayList<>());
+    public CompletableFuture<Void> deactivatePunishment(Punishment punishment) {
+        punishment.setActive(false);
+        unindexPunishment(punishment);
+        return storage.updatePunishment(punishment).whenComplete((v, ex) -> historyCache.invalidate(punishment.getPlayerUUID()));
+    }
 
-            for (Punishment p : playerPunishments) {
-                if (p.getType() == type && p.isActive()) {
-                    p.setActive(false);
-                    storage.updatePunishment(p);
+    public CompletableFuture<Void> recordPlayer(UUID playerUUID, String playerName, String ipAddress, long seenAt) {
+        // Invalidated once the row is written, so a lookup racing with the write cannot cache the old owner of the name
+        String key = playerName.toLowerCase(Locale.ROOT);
+        knownNames.add(playerName);
+        return storage.recordPlayer(playerUUID, playerName, ipAddress, seenAt).whenComplete((v, ex) -> nameCache.invalidate(key));
+    }
+
+    private void indexPunishment(Punishment punishment) {
+        // A sync can index a copy of this server's own insert before savePunishment completes; that copy is replaced
+        Punishment previous = activePunishments.find(punishment);
+        if (previous != null && previous != punishment) {
+            expirationScheduler.untrack(previous);
+            loginScreens.remove(previous);
+        }
+        activePunishments.add(punishment);
+        if (punishment.getType() == PunishmentType.IPBAN && punishment.getIpAddress() != null) {
+            bannedIps.add(punishment.getIpAddress());
+        }
+        if (punishment.getType().isMute()) {
+            muteStates.put(punishment.getPlayerUUID(), createMuteState(punishment));
+        }
+        expirationScheduler.track(punishment);
+    }
+
+    private void unindexPunishment(Punishment punishment) {
+        expirationScheduler.untrack(punishment);
+        removeFromIndex(punishment);
+    }
+
+    private void removeFromIndex(Punishment punishment) {
+        activePunishments.remove(punishment);
+        loginScreens.remove(punishment);
+        if (punishment.getType() == PunishmentType.IPBAN && punishment.getIpAddress() != null
+                && activePunishments.getActiveIPBans(punishment.getIpAddress()).isEmpty()) {
+            bannedIps.remove(punishment.getIpAddress());
+        }
+        if (punishment.getType().isMute()) {
+            UUID playerUUID = punishment.getPlayerUUID();
+            Punishment remaining = activePunishments.findMute(playerUUID);
+            if (remaining != null) {
+                muteStates.put(playerUUID, createMuteState(remaining));
+            } else {
+                muteStates.remove(playerUUID);
+            }
+        }
+    }
+
+    /**
+     * Applies rows changed in storage since the last sync, picking up punishments issued or lifted by other servers
+     * sharing the database. Rows this server wrote itself are already indexed and are skipped.
+     */
+    public CompletableFuture<Integer> syncChanges() {
+        long startedAt = System.currentTimeMillis();
+        long since = lastSyncAt - SYNC_CLOCK_SKEW_MILLIS;
+
+        return storage.getPunishmentsUpdatedSince(since).thenApply(rows -> {
+            int changed = 0;
+            for (Punishment row : rows) {
+                historyCache.invalidate(row.getPlayerUUID());
+                Punishment indexed = activePunishments.find(row);
+                if (row.isActive()) {
+                    if (indexed == null) {
+                        indexPunishment(row);
+                        changed++;
+                    }
+                } else if (indexed != null) {
+                    indexed.setActive(false);
+                    unindexPunishment(indexed);
+                    changed++;
                 }
             }
+            lastSyncAt = startedAt;
+            return changed;
         });
     }
 
-    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
-        return storage.getActivePunishments(playerUUID);
+    private MuteState createMuteState(Punishment punishment) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("player", punishment.getPlayerName());
+        placeholders.put("reason", punishment.getReason());
+        placeholders.put("operator", punishment.getOperator());
+
+        String path = punishment.getType() == PunishmentType.TEMPMUTE ? "mute.tempmuted_message" : "mute.muted_message";
+        return new MuteState(punishment, PunishmentScreen.of(plugin.getMessageManager().getMessage(path, placeholders)));
     }
 
-    public CompletableFuture<List<Punishment>> getPunishmentHistory(UUID playerUUID) {
-        return storage.getPunishmentHistory(playerUUID);
+    /**
+     * Returns the disconnect screen for a ban or IP ban. Screens of indexed punishments are built once and kept
+     * until the punishment leaves the index; {@code duration} only fills the time-remaining slot.
+     */
+    public Component getLoginScreen(Punishment punishment, String duration) {
+        PunishmentScreen screen = loginScreens.get(punishment);
+        if (screen == null) {
+            screen = createLoginScreen(punishment);
+            // Only screens of indexed punishments are kept, so each is dropped when its punishment leaves the index
+            if (activePunishments.find(punishment) == punishment) {
+                loginScreens.put(punishment, screen);
+            }
+        }
+        return screen.render(duration);
     }
 
-    public CompletableFuture<Boolean> isBanned(UUID playerUUID) {
-        return getActivePunishments(playerUUID).thenApply(punishments ->
-                punishments.stream().anyMatch(p -> p.getType().isBan())
-        );
+    private PunishmentScreen createLoginScreen(Punishment punishment) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("reason", punishment.getReason());
+        placeholders.put("operator", punishment.getOperator());
+
+        String path;
+        if (punishment.getType() == PunishmentType.IPBAN) {
+            placeholders.put("ip", punishment.getIpAddress());
+            path = "ban.ipban_message";
+        } else {
+            placeholders.put("player", punishment.getPlayerName());
+            placeholders.put("uuid", punishment.getPlayerUUID().toString());
+            if (punishment.getType() == PunishmentType.TEMPBAN) {
+                placeholders.put("expiration", formatDate(punishment.getExpiresAt()));
+                path = "ban.tempban_message";
+            } else {
+                path = "ban.banned_message";
+            }
+        }
+        return PunishmentScreen.of(plugin.getMessageManager().getMessage(path, placeholders));
     }
 
-    public CompletableFuture<Boolean> isIPBanned(String ipAddress) {
-        return storage.getPunishmentsByIP(ipAddress).thenApply(punishments ->
-                punishments.stream().anyMatch(p -> p.getType() == PunishmentType.IPBAN && p.isActive())
-        );
+    public CompletableFuture<Void> removePunishment(UUID playerUUID, PunishmentType type) {
+        List<CompletableFuture<Void>> updates = new ArrayList<>();
+
+        for (Punishment p : activePunishments.getActive(playerUUID)) {
+            if (p.getType() == type) {
+                updates.add(deactivatePunishment(p));
+            }
+        }
+
+        return CompletableFuture.allOf(updates.toArray(new CompletableFuture[0]));
     }
 
-    public CompletableFuture<Boolean> isMuted(UUID playerUUID) {
-        return getActivePunishments(playerUUID).thenApply(punishments ->
-                punishments.stream().anyMatch(p -> p.getType().isMute())
-        );
+    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
+        return CompletableFuture.completedFuture(activePunishments.getActive(playerUUID));
     }
 
-    public CompletableFuture<String> getBanMessage(UUID playerUUID) {
-        return getActivePunishments(playerUUID).thenApply(punishments -> {
-            for (Punishment p : punishments) {
-                if (p.getType() == PunishmentType.BAN) {
-                    Map<String, String> placeholders = createPlaceholders(p);
-                    return plugin.getMessageManager().getMessage("ban.banned_message", placeholders);
-                } else if (p.getType() == PunishmentType.TEMPBAN) {
-                    Map<String, String> placeholders = createPlaceholders(p);
-                    placeholders.put("duration", formatDuration(p.getExpiresAt() - System.currentTimeMillis()));
-                    placeholders.put("expiration", formatDate(p.getExpiresAt()));
-                    return plugin.getMessageManager().getMessage("ban.tempban_message", placeholders);
-                } else if (p.getType() == PunishmentType.IPBAN) {
-                    Map<String, String> placeholders = createPlaceholders(p);
-                    return plugin.getMessageManager().getMessage("ban.ipban_message", placeholders);
-                }
+    public CompletableFuture<List<Punishment>> getActiveIPBans(String ipAddress) {
+        return CompletableFuture.completedFuture(activePunishments.getActiveIPBans(ipAddress));
+    }
+
+    /**
+     * Returns one page (1-based) of the player's history in at most two queries: a lookup of the page's start
+     * cursor when it is not known yet, then a keyset fetch of the page itself.
+     */
+    public CompletableFuture<HistoryPage> getHistoryPage(UUID playerUUID, int page) {
+        HistoryPages cached = historyCache.get(playerUUID);
+        HistoryPage cachedPage = cached != null ? cached.get(page) : null;
+        if (cachedPage != null) {
+            return CompletableFuture.completedFuture(cachedPage);
+        }
+
+        return historyLookups.execute(playerUUID + ":" + page, () -> {
+            long generation = historyCache.generation();
+            HistoryPages pages = historyCache.get(playerUUID);
+            if (pages == null) {
+                pages = new HistoryPages();
+                historyCache.put(playerUUID, pages, generation);
             }
-            return "";
+            return fetchHistoryPage(playerUUID, pages, page);
         });
     }
 
-    public CompletableFuture<Void> expireActivePunishments() {
-        return CompletableFuture.runAsync(() -> {
-            for (List<Punishment> punishments : activePunishments.values()) {
-                for (Punishment p : punishments) {
-                    if (p.isActive() && p.hasExpired()) {
-                        p.setActive(false);
-                        storage.updatePunishment(p).thenRun(() ->
-                                plugin.getLogger().info("Expired punishment for " + p.getPlayerName())
-                        );
-                    }
-                }
+    private CompletableFuture<HistoryPage> fetchHistoryPage(UUID playerUUID, HistoryPages pages, int page) {
+        HistoryCursor start = pages.start(page);
+        if (start != null) {
+            return fetchHistoryPage(playerUUID, pages, page, start);
+        }
+
+        // The page starts after the last row of the previous one, found by offset instead of walking every page before it
+        return storage.getHistoryCursor(playerUUID, (long) (page - 1) * HISTORY_PAGE_SIZE - 1).thenCompose(cursor -> {
+            if (cursor == null) {
+                HistoryPage result = new HistoryPage(page, List.of(), false);
+                pages.put(result);
+                return CompletableFuture.completedFuture(result);
             }
+            pages.recordStart(page, cursor);
+            return fetchHistoryPage(playerUUID, pages, page, cursor);
         });
     }
 
-    public CompletableFuture<UUID> getPlayerUUID(String playerName) {
-        var onlinePlayer = Bukkit.getPlayer(playerName);
-        if (onlinePlayer != null) {
-            return CompletableFuture.completedFuture(onlinePlayer.getUniqueId());
-        }
+    private CompletableFuture<HistoryPage> fetchHistoryPage(UUID playerUUID, HistoryPages pages, int page, HistoryCursor start) {
+        // One extra row tells whether a next page exists without counting the whole history
+        return storage.getPunishmentHistoryPage(playerUUID, start, HISTORY_PAGE_SIZE + 1).thenApply(rows -> {
+            boolean hasNext = rows.size() > HISTORY_PAGE_SIZE;
+            List<Punishment> entries = List.copyOf(hasNext ? rows.subList(0, HISTORY_PAGE_SIZE) : rows);
+            if (hasNext) {
+                pages.recordStart(page + 1, HistoryCursor.after(entries.get(entries.size() - 1)));
+            }
 
-        return storage.getOfflineUUID(playerName);
+            HistoryPage result = new HistoryPage(page, entries, hasNext);
+            pages.put(result);
+            return result;
+        });
     }
 
-    private Map<String, String> createPlaceholders(Punishment p) {
-        Map<String, String> placeholders = new HashMap<>();
-        placeholders.put("player", p.getPlayerName());
-        placeholders.put("uuid", p.getPlayerUUID().toString());
-        placeholders.put("reason", p.getReason());
-        placeholders.put("operator", p.getOperator());
-        placeholders.put("ip", p.getIpAddress() != null ? p.getIpAddress() : "N/A");
-        return placeholders;
+    /**
+     * The ban or IP ban that denies this login, if any. The index is loaded before listeners are registered,
+     * so this never waits on storage.
+     */
+    public Punishment getLoginVerdict(UUID playerUUID, String ipAddress) {
+        return activePunishments.findLoginVerdict(playerUUID, ipAddress);
     }
 
-    private String formatDuration(long milliseconds) {
-        if (milliseconds <= 0) {
-            return "expired";
-        }
+    public MuteState getMuteState(UUID playerUUID) {
+        return muteStates.get(playerUUID);
+    }
 
-        long seconds = milliseconds / 1000;
-        long minutes = seconds / 60;
-        long hours = minutes / 60;
-        long days = hours / 24;
-        long weeks = days / 7;
+    public boolean isBanned(UUID playerUUID) {
+        return activePunishments.findBan(playerUUID) != null;
+    }
 
-        seconds %= 60;
-        minutes %= 60;
-        hours %= 24;
-        days %= 7;
+    public boolean isIPBanned(String ipAddress) {
+        return activePunishments.findIPBan(ipAddress) != null;
+    }
 
-        StringBuilder result = new StringBuilder();
-        
-        if (weeks > 0) {
-            result.append(weeks).append(" week").append(weeks > 1 ? "s" : "");
-        }
-        if (days > 0) {
-            if (result.length() > 0) result.append(" ");
-            result.append(days).append(" day").append(days > 1 ? "s" : "");
+    public boolean isMuted(UUID playerUUID) {
+        return activePunishments.findMute(playerUUID) != null;
+    }
+
+    private void expirePunishments(List<Punishment> due) {
+        List<Punishment> expired = new ArrayList<>(due.size());
+        for (Punishment p : due) {
+            if (p.hasExpired()) {
+                p.setActive(false);
+                removeFromIndex(p);
+                expired.add(p);
+            }
         }
-        if (hours > 0) {
-            if (result.length() > 0) result.append(" ");
-            result.append(hours).append(" hour").append(hours > 1 ? "s" : "");
+
+        if (expired.isEmpty()) {
+            return;
         }
-        if (minutes > 0) {
-            if (result.length() > 0) result.append(" ");
-            result.append(minutes).append(" minute").append(minutes > 1 ? "s" : "");
+
+        storage.updatePunishments(expired).thenRun(() -> {
+            for (Punishment p : expired) {
+                historyCache.invalidate(p.getPlayerUUID());
+                plugin.getLogger().info("Expired punishment for " + p.getPlayerName());
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> sweepExpiredPunishments() {
+        long startedAt = System.nanoTime();
+        ExpirySweepEvent event = new ExpirySweepEvent();
+        event.begin();
+        return storage.expireDue(System.currentTimeMillis()).thenApply(rows -> {
+            for (Punishment row : rows) {
+                // Rows are fresh copies, so the indexed instance is what has to leave the index and the deadline queue
+                Punishment indexed = activePunishments.find(row);
+                if (indexed != null) {
+                    indexed.setActive(false);
+                    unindexPunishment(indexed);
+                }
+                historyCache.invalidate(row.getPlayerUUID());
+            }
+            plugin.getMetrics().recordExpirySweep(System.nanoTime() - startedAt, rows.size());
+            if (event.shouldCommit()) {
+                event.expired = rows.size();
+                event.commit();
+            }
+            return rows.size();
+        });
+    }
+
+    /**
+     * Known player names starting with {@code prefix}, answered from memory without touching storage.
+     */
+    public List<String> completePlayerNames(String prefix, int limit) {
+        return knownNames.complete(prefix, limit);
+    }
+
+    public List<String> completeBannedIps(String prefix, int limit) {
+        return bannedIps.complete(prefix, limit);
+    }
+
+    /**
+     * The history and offline-name caches by name, for metrics.
+     */
+    public Map<String, LruCache<?, ?>> getCaches() {
+        return Map.of("history", historyCache, "names", nameCache);
+    }
+
+    public int getPendingExpirationCount() {
+        return expirationScheduler.pending();
+    }
+
+    public int getActivePunishmentCount() {
+        return activePunishments.size();
+    }
+
+    public CompletableFuture<UUID> getPlayerUUID(String playerName) {
+        var onlinePlayer = Bukkit.getPlayer(playerName);
+        if (onlinePlayer != null) {
+            return CompletableFuture.completedFuture(onlinePlayer.getUniqueId());
         }
-        if (seconds > 0 || result.length() == 0) {
-            if (result.length() > 0) result.append(" ");
-            result.append(seconds).append(" second").append(seconds > 1 ? "s" : "");
+
+        String key = playerName.toLowerCase(Locale.ROOT);
+        Optional<UUID> cached = nameCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached.orElse(null));
         }
 
-        return result.toString();
+        // Unknown names are cached too, so repeated typos do not each cost a query
+        return nameLookups.execute(key, () -> {
+            long generation = nameCache.generation();
+            return storage.getOfflineUUID(playerName).thenApply(uuid -> {
+                nameCache.put(key, Optional.ofNullable(uuid), generation);
+                return uuid;
+            });
+        });
     }
 
     private String formatDate(long timestamp) {
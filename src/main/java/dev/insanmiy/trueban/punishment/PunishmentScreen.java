@@ -0,0 +1,97 @@
+package dev.insanmiy.trueban.punishment;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.serializer.legacy.LegacyComponentSerializer;
+
+/**
+ * A ban, IP-ban or mute screen converted to Adventure components once. Only the {@code %duration%} slots are
+ * filled in per render; the text around them is deserialized up front, carrying the legacy color and format
+ * codes that were active at each slot so styling is unchanged.
+ */
+public final class PunishmentScreen {
+
+    private static final String DURATION = "%duration%";
+    private static final LegacyComponentSerializer LEGACY = LegacyComponentSerializer.legacySection();
+
+    private final Component fixed;
+    private final Component[] segments;
+    private final String[] slotCodes;
+
+    private PunishmentScreen(Component fixed, Component[] segments, String[] slotCodes) {
+        this.fixed = fixed;
+        this.segments = segments;
+        this.slotCodes = slotCodes;
+    }
+
+    /**
+     * Compiles an already rendered, {@code §}-colored message that may still contain {@code %duration%}.
+     */
+    public static PunishmentScreen of(String message) {
+        int slot = message.indexOf(DURATION);
+        if (slot < 0) {
+            return new PunishmentScreen(LEGACY.deserialize(message), null, null);
+        }
+
+        int slotCount = 0;
+        for (int i = slot; i >= 0; i = message.indexOf(DURATION, i + DURATION.length())) {
+            slotCount++;
+        }
+
+        Component[] segments = new Component[slotCount + 1];
+        String[] slotCodes = new String[slotCount];
+        int start = 0;
+        String codes = "";
+        for (int i = 0; i < slotCount; i++) {
+            int end = message.indexOf(DURATION, start);
+            String segment = codes + message.substring(start, end);
+            segments[i] = LEGACY.deserialize(segment);
+            codes = activeCodes(segment);
+            slotCodes[i] = codes;
+            start = end + DURATION.length();
+        }
+        segments[slotCount] = LEGACY.deserialize(codes + message.substring(start));
+
+        return new PunishmentScreen(null, segments, slotCodes);
+    }
+
+    public boolean hasDuration() {
+        return fixed == null;
+    }
+
+    /**
+     * Returns the screen with {@code duration} in each slot; a {@code null} duration leaves the placeholder as written.
+     */
+    public Component render(String duration) {
+        if (fixed != null) {
+            return fixed;
+        }
+
+        String text = duration != null ? duration : DURATION;
+        Component result = Component.empty();
+        for (int i = 0; i < slotCodes.length; i++) {
+            result = result.append(segments[i]).append(LEGACY.deserialize(slotCodes[i] + text));
+        }
+        return result.append(segments[slotCodes.length]);
+    }
+
+    // The color code in effect at the end of text, followed by any format codes applied after it
+    private static String activeCodes(String text) {
+        StringBuilder codes = new StringBuilder();
+        for (int i = 0; i < text.length() - 1; i++) {
+            if (text.charAt(i) != '§') {
+                continue;
+            }
+
+            char code = Character.toLowerCase(text.charAt(i + 1));
+            if ((code >= '0' && code <= '9') || (code >= 'a' && code <= 'f') || code == 'r') {
+                codes.setLength(0);
+                if (code != 'r') {
+                    codes.append('§').append(code);
+                }
+            } else if (code >= 'k' && code <= 'o') {
+                codes.append('§').append(code);
+            }
+        }
+        return codes.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package dev.insanmiy.trueban.storage;
+
+import dev.insanmiy.trueban.ip.IpAddresses;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.UUID;
+
+/**
+ * Binds and reads the {@code player_uuid} and {@code ip_address} columns in either the original text
+ * format or the compact one (16-byte UUIDs, 4/16-byte IP addresses).
+ */
+final class ColumnCodec {
+
+    static final ColumnCodec TEXT = new ColumnCodec(false);
+    static final ColumnCodec BINARY = new ColumnCodec(true);
+
+    private final boolean binary;
+
+    private ColumnCodec(boolean binary) {
+        this.binary = binary;
+    }
+
+    boolean isBinary() {
+        return binary;
+    }
+
+    void setUUID(PreparedStatement stmt, int index, UUID uuid) throws SQLException {
+        if (binary) {
+            stmt.setBytes(index, uuidToBytes(uuid));
+        } else {
+            stmt.setString(index, uuid.toString());
+        }
+    }
+
+    UUID getUUID(ResultSet rs, String column) throws SQLException {
+        return binary ? uuidFromBytes(rs.getBytes(column)) : UUID.fromString(rs.getString(column));
+    }
+
+    void setIp(PreparedStatement stmt, int index, String ipAddress) throws SQLException {
+        if (!binary) {
+            stmt.setString(index, ipAddress);
+            return;
+        }
+
+        byte[] address = IpAddresses.parse(ipAddress);
+        if (address == null) {
+            stmt.setNull(index, Types.VARBINARY);
+        } else {
+            stmt.setBytes(index, address);
+        }
+    }
+
+    String getIp(ResultSet rs, String column) throws SQLException {
+        return binary ? IpAddresses.format(rs.getBytes(column)) : rs.getString(column);
+    }
+
+    /**
+     * Binds an address or CIDR range as the address column plus a prefix length column (NULL for a single address).
+     */
+    void setIpRange(PreparedStatement stmt, int addressIndex, int prefixIndex, String ipAddress) throws SQLException {
+        int slash = ipAddress == null ? -1 : ipAddress.indexOf('/');
+        Integer prefix = null;
+        if (slash >= 0) {
+            try {
+                prefix = Integer.parseInt(ipAddress.substring(slash + 1).trim());
+                ipAddress = ipAddress.substring(0, slash);
+            } catch (NumberFormatException e) {
+                prefix = null;
+            }
+        }
+
+        setIp(stmt, addressIndex, ipAddress);
+        if (prefix == null) {
+            stmt.setNull(prefixIndex, Types.SMALLINT);
+        } else {
+            stmt.setInt(prefixIndex, prefix);
+        }
+    }
+
+    String getIpRange(ResultSet rs, String addressColumn, String prefixColumn) throws SQLException {
+        String address = getIp(rs, addressColumn);
+        int prefix = rs.getInt(prefixColumn);
+        if (rs.wasNull() || address == null) {
+            return address;
+        }
+        return address + "/" + prefix;
+    }
+
+    static byte[] uuidToBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID uuidFromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,16 @@
+package dev.insanmiy.trueban.storage;
+
+import dev.insanmiy.trueban.punishment.Punishment;
+
+/**
+ * Keyset position in a player's history, which is ordered newest first by {@code (created_at, id)}.
+ * A page starts at the first row strictly older than the cursor.
+ */
+public record HistoryCursor(long createdAt, long id) {
+
+    public static final HistoryCursor FIRST = new HistoryCursor(Long.MAX_VALUE, Long.MAX_VALUE);
+
+    public static HistoryCursor after(Punishment punishment) {
+        return new HistoryCursor(punishment.getCreatedAt(), punishment.getId());
+    }
+}
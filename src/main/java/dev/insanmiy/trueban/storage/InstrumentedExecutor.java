@@ -0,0 +1,121 @@
+package dev.insanmiy.trueban.storage;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A storage executor that records how long each task waited in the queue and how long it ran, attributed to the
+ * {@link StorageOperation} that submitted it. Tasks submitted while another task runs, such as a read chained
+ * after a flush, inherit that task's operation.
+ */
+final class InstrumentedExecutor extends ScheduledThreadPoolExecutor {
+
+    private final String name;
+    private final StorageMetrics metrics;
+
+    /**
+     * With one thread it is named {@code name}, otherwise {@code name-1}, {@code name-2} and so on.
+     */
+    InstrumentedExecutor(String name, int threads, StorageMetrics metrics) {
+        super(threads, threadFactory(name, threads));
+        this.name = name;
+        this.metrics = metrics;
+        metrics.register(this);
+    }
+
+    private static ThreadFactory threadFactory(String name, int threads) {
+        AtomicInteger id = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, threads == 1 ? name : name + "-" + id.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // Both run on the submitting thread, which is where the current operation is known
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Runnable runnable, RunnableScheduledFuture<V> task) {
+        return new TimedTask<>(task, StorageMetrics.currentOperation());
+    }
+
+    @Override
+    protected <V> RunnableScheduledFuture<V> decorateTask(Callable<V> callable, RunnableScheduledFuture<V> task) {
+        return new TimedTask<>(task, StorageMetrics.currentOperation());
+    }
+
+    private final class TimedTask<V> implements RunnableScheduledFuture<V> {
+
+        private final RunnableScheduledFuture<V> task;
+        private final StorageOperation operation;
+
+        TimedTask(RunnableScheduledFuture<V> task, StorageOperation operation) {
+            this.task = task;
+            this.operation = operation;
+        }
+
+        @Override
+        public void run() {
+            // A task is due at its trigger time, so how far that lies in the past is the time spent queued
+            long waitNanos = Math.max(0, -task.getDelay(TimeUnit.NANOSECONDS));
+            long start = System.nanoTime();
+            StorageOperation previous = StorageMetrics.enterOperation(operation);
+            try {
+                task.run();
+            } finally {
+                StorageMetrics.restoreOperation(previous);
+                metrics.taskCompleted(operation, waitNanos, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return task.isPeriodic();
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return task.getDelay(unit);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return task.compareTo(other instanceof TimedTask<?> timed ? timed.task : other);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return task.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return task.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return task.isDone();
+        }
+
+        @Override
+        public V get() throws InterruptedException, ExecutionException {
+            return task.get();
+        }
+
+        @Override
+        public V get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return task.get(timeout, unit);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package dev.insanmiy.trueban.storage;
+
+import dev.insanmiy.trueban.jfr.StorageCallEvent;
+import dev.insanmiy.trueban.punishment.Punishment;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Records every call to the wrapped storage in its {@link StorageMetrics}: call counts, failures, in-flight calls
+ * and the latency from call to completion, plus a {@link StorageCallEvent} while a flight recording is running.
+ * While a call runs, the operation is visible to the backend's executors so their queue wait and execution time
+ * is attributed to it.
+ */
+public class InstrumentedStorage implements StorageManager {
+
+    private final StorageManager delegate;
+    private final StorageMetrics metrics;
+
+    public InstrumentedStorage(StorageManager delegate) {
+        this.delegate = delegate;
+        this.metrics = delegate.getMetrics();
+    }
+
+    public StorageManager getDelegate() {
+        return delegate;
+    }
+
+    private <T> CompletableFuture<T> track(StorageOperation operation, Supplier<CompletableFuture<T>> call) {
+        return track(operation, -1, call);
+    }
+
+    // writtenRows is reported to JFR for writes; reads (-1) report the rows they returned
+    private <T> CompletableFuture<T> track(StorageOperation operation, int writtenRows, Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        StorageCallEvent event = new StorageCallEvent();
+        event.begin();
+        metrics.callStarted();
+        StorageOperation previous = StorageMetrics.enterOperation(operation);
+        CompletableFuture<T> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            metrics.callCompleted(operation, System.nanoTime() - start, true);
+            commit(event, operation, 0, false);
+            throw e;
+        } finally {
+            StorageMetrics.restoreOperation(previous);
+        }
+
+        future.whenComplete((result, ex) -> {
+            metrics.callCompleted(operation, System.nanoTime() - start, ex != null);
+            commit(event, operation, writtenRows >= 0 ? writtenRows : rowsOf(result), ex == null);
+        });
+        return future;
+    }
+
+    private static void commit(StorageCallEvent event, StorageOperation operation, int rows, boolean succeeded) {
+        if (event.shouldCommit()) {
+            event.operation = operation.getKey();
+            event.rows = rows;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    private static int rowsOf(Object result) {
+        if (result instanceof Collection<?> rows) {
+            return rows.size();
+        }
+        return result != null ? 1 : 0;
+    }
+
+    @Override
+    public boolean isReady() {
+        return delegate.isReady();
+    }
+
+    @Override
+    public StorageMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public CompletableFuture<Void> savePunishment(Punishment punishment) {
+        return track(StorageOperation.SAVE_PUNISHMENT, 1, () -> delegate.savePunishment(punishment));
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePunishment(Punishment punishment) {
+        return track(StorageOperation.UPDATE_PUNISHMENT, 1, () -> delegate.updatePunishment(punishment));
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePunishments(List<Punishment> punishments) {
+        return track(StorageOperation.UPDATE_PUNISHMENTS, punishments.size(), () -> delegate.updatePunishments(punishments));
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
+        return track(StorageOperation.GET_ACTIVE_PUNISHMENTS, () -> delegate.getActivePunishments(playerUUID));
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getAllActivePunishments() {
+        return track(StorageOperation.GET_ALL_ACTIVE_PUNISHMENTS, delegate::getAllActivePunishments);
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getPunishmentsUpdatedSince(long since) {
+        return track(StorageOperation.GET_PUNISHMENTS_UPDATED_SINCE, () -> delegate.getPunishmentsUpdatedSince(since));
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getPunishmentHistory(UUID playerUUID) {
+        return track(StorageOperation.GET_PUNISHMENT_HISTORY, () -> delegate.getPunishmentHistory(playerUUID));
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getPunishmentHistoryPage(UUID playerUUID, HistoryCursor after, int limit) {
+        return track(StorageOperation.GET_PUNISHMENT_HISTORY_PAGE,
+                () -> delegate.getPunishmentHistoryPage(playerUUID, after, limit));
+    }
+
+    @Override
+    public CompletableFuture<HistoryCursor> getHistoryCursor(UUID playerUUID, long offset) {
+        return track(StorageOperation.GET_HISTORY_CURSOR, () -> delegate.getHistoryCursor(playerUUID, offset));
+    }
+
+    @Override
+    public CompletableFuture<Void> recordPlayer(UUID playerUUID, String playerName, String ipAddress, long seenAt) {
+        return track(StorageOperation.RECORD_PLAYER, 1, () -> delegate.recordPlayer(playerUUID, playerName, ipAddress, seenAt));
+    }
+
+    @Override
+    public CompletableFuture<UUID> getOfflineUUID(String playerName) {
+        return track(StorageOperation.GET_OFFLINE_UUID, () -> delegate.getOfflineUUID(playerName));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getKnownPlayerNames() {
+        return track(StorageOperation.GET_KNOWN_PLAYER_NAMES, delegate::getKnownPlayerNames);
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getPunishmentsByIP(String ipAddress) {
+        return track(StorageOperation.GET_PUNISHMENTS_BY_IP, () -> delegate.getPunishmentsByIP(ipAddress));
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> expireDue(long now) {
+        return track(StorageOperation.EXPIRE_DUE, () -> delegate.expireDue(now));
+    }
+
+    @Override
+    public CompletableFuture<Void> deletePunishment(UUID playerUUID, int punishmentIndex) {
+        return track(StorageOperation.DELETE_PUNISHMENT, 1, () -> delegate.deletePunishment(playerUUID, punishmentIndex));
+    }
+
+    @Override
+    public CompletableFuture<Void> clearAll() {
+        return track(StorageOperation.CLEAR_ALL, 0, delegate::clearAll);
+    }
+}
@@ -0,0 +1,16 @@
+package dev.insanmiy.trueban.storage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * One ordered schema change. Steps run inside a transaction; on MySQL, DDL commits implicitly,
+ * so MySQL steps must be safe to re-run after a partial failure.
+ */
+record Migration(int version, String description, Step step) {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+}
@@ -2,7 +2,9 @@ package dev.insanmiy.trueban.storage;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.config.ConfigManager;
 import dev.insanmiy.trueban.punishment.Punishment;
 import dev.insanmiy.trueban.punishment.PunishmentType;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -10,32 +12,47 @@ import org.bukkit.plugin.java.JavaPlugin;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.logging.Logger;
 
 public class MysqlStorage implements StorageManager {
 
-    private final JavaPlugin plugin;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 5000;
+    private static final int MIGRATION_LOCK_TIMEOUT_SECONDS = 60;
+    private static final int BACKFILL_BATCH_SIZE = 5000;
+
+    private final Logger logger;
     private final HikariDataSource dataSource;
+    private final StorageMetrics metrics = new StorageMetrics();
     private final ScheduledExecutorService executor;
+    private final WriteBehindQueue writeQueue;
+    private final boolean binaryIds;
+    private ColumnCodec codec = ColumnCodec.TEXT;
+    private ColumnCodec playerCodec = ColumnCodec.TEXT;
     private volatile boolean ready;
 
     public MysqlStorage(JavaPlugin plugin) throws Exception {
-        this.plugin = plugin;
-        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "TrueBan-MysqlStorage");
-            t.setDaemon(true);
-            return t;
-        });
-
-        this.dataSource = setupConnectionPool();
+        this(plugin.getLogger(), ((TrueBan) plugin).getConfigManager());
+    }
+
+    // Needs no running server, so tools and benchmarks can connect directly
+    public MysqlStorage(Logger logger, ConfigManager config) throws Exception {
+        this.logger = logger;
+        this.executor = new InstrumentedExecutor("TrueBan-MysqlStorage", 1, metrics);
+
+        this.dataSource = setupConnectionPool(config);
+        this.binaryIds = config.getBoolean("settings.binary-ids", false);
+
         initializeDatabase();
+
+        this.writeQueue = new WriteBehindQueue(logger, new PooledConnectionSource(), codec, executor,
+                config.getWriteBatchSize(), config.getWriteFlushIntervalMillis());
+        metrics.setPendingWrites(writeQueue::pendingCount);
         this.ready = true;
     }
 
-    private HikariDataSource setupConnectionPool() {
-        TrueBan trueBan = (TrueBan) plugin;
-        Map<String, Object> mysqlConfig = (Map<String, Object>) trueBan.getConfigManager().getConfigData().get("mysql");
+    private HikariDataSource setupConnectionPool(ConfigManager configManager) {
+        Map<String, Object> mysqlConfig = (Map<String, Object>) configManager.getConfigData().get("mysql");
 
         String host = (String) mysqlConfig.getOrDefault("host", "localhost");
         int port = toInt(mysqlConfig.getOrDefault("port", 3306));
@@ -59,39 +76,236 @@ public class MysqlStorage implements StorageManager {
         config.setIdleTimeout(idleTimeout);
         config.setAutoCommit(true);
         config.setPoolName("TrueBan-Pool");
+        config.addDataSourceProperty("rewriteBatchedStatements", "true");
 
         return new HikariDataSource(config);
     }
 
     private void initializeDatabase() throws Exception {
         try (Connection conn = dataSource.getConnection()) {
-            createTables(conn);
+            // Servers sharing one database must not run the same migration concurrently
+            try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK('trueban_schema', ?)")) {
+                stmt.setInt(1, MIGRATION_LOCK_TIMEOUT_SECONDS);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next() || rs.getInt(1) != 1) {
+                        throw new SQLException("Timed out waiting for the schema migration lock");
+                    }
+                }
+            }
+
+            try {
+                int applied = new SchemaMigrator(logger).migrate(conn, migrations());
+                if (applied > 0) {
+                    logger.info("Applied " + applied + " MySQL schema migrations");
+                }
+                codec = detectCodec(conn, "punishments", "player_uuid");
+                playerCodec = detectCodec(conn, "players", "uuid");
+            } finally {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("SELECT RELEASE_LOCK('trueban_schema')");
+                }
+            }
         }
     }
 
-    private void createTables(Connection conn) throws SQLException {
-        String createPunishmentsTable = """
-                CREATE TABLE IF NOT EXISTS punishments (
-                    id INT AUTO_INCREMENT PRIMARY KEY,
-                    player_uuid VARCHAR(36) NOT NULL,
-                    player_name VARCHAR(16) NOT NULL,
-                    ip_address VARCHAR(15),
-                    type VARCHAR(20) NOT NULL,
-                    reason TEXT NOT NULL,
-                    operator VARCHAR(16) NOT NULL,
-                    created_at BIGINT NOT NULL,
-                    expires_at BIGINT NOT NULL,
-                    active BOOLEAN NOT NULL DEFAULT true,
-                    created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-                    UNIQUE KEY unique_punishment (player_uuid, created_at),
-                    INDEX idx_player_uuid (player_uuid),
-                    INDEX idx_ip_address (ip_address),
-                    INDEX idx_active (active)
-                ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
-                """;
+    // MySQL commits DDL implicitly, so every step checks the current schema before changing it
+    private List<Migration> migrations() {
+        List<Migration> migrations = new ArrayList<>();
+
+        migrations.add(new Migration(1, "create punishments table", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS punishments (
+                            id INT AUTO_INCREMENT PRIMARY KEY,
+                            player_uuid VARCHAR(36) NOT NULL,
+                            player_name VARCHAR(16) NOT NULL,
+                            ip_address VARCHAR(15),
+                            type VARCHAR(20) NOT NULL,
+                            reason TEXT NOT NULL,
+                            operator VARCHAR(16) NOT NULL,
+                            created_at BIGINT NOT NULL,
+                            expires_at BIGINT NOT NULL,
+                            active BOOLEAN NOT NULL DEFAULT true,
+                            created_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+                            UNIQUE KEY unique_punishment (player_uuid, created_at),
+                            INDEX idx_player_uuid (player_uuid),
+                            INDEX idx_ip_address (ip_address),
+                            INDEX idx_active (active)
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+                        """);
+            }
+        }));
+
+        migrations.add(new Migration(2, "index punishments by (active, expires_at)", conn -> {
+            if (!indexExists(conn, "punishments", "idx_active_expires")) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE punishments ADD INDEX idx_active_expires (active, expires_at), ALGORITHM=INPLACE, LOCK=NONE");
+                }
+            }
+        }));
+
+        migrations.add(new Migration(3, "widen ip_address for IPv6", conn -> {
+            if ("varchar".equalsIgnoreCase(columnType(conn, "punishments", "ip_address"))) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE punishments MODIFY ip_address VARCHAR(45), ALGORITHM=INPLACE, LOCK=NONE");
+                }
+            }
+        }));
+
+        // Opt-in; once applied the table stays binary, and the codec is picked from the column type at startup
+        if (binaryIds) {
+            migrations.add(new Migration(4, "store UUIDs and IP addresses as binary", this::convertToBinaryIds));
+        }
+
+        // The players table takes whichever UUID/IP format punishments uses when it is created
+        migrations.add(new Migration(5, "create players table", conn -> {
+            ColumnCodec current = detectCodec(conn, "punishments", "player_uuid");
+            String uuidType = current.isBinary() ? "BINARY(16)" : "VARCHAR(36)";
+            String ipType = current.isBinary() ? "VARBINARY(16)" : "VARCHAR(45)";
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS players (
+                            uuid %s NOT NULL PRIMARY KEY,
+                            name VARCHAR(16) NOT NULL,
+                            name_lower VARCHAR(16),
+                            last_ip %s,
+                            first_seen BIGINT NOT NULL,
+                            last_seen BIGINT NOT NULL,
+                            UNIQUE KEY idx_players_name_lower (name_lower)
+                        ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+                        """.formatted(uuidType, ipType));
+                stmt.execute("DELETE FROM players");
+            }
+
+            int players = PlayerTable.backfill(conn, current);
+            logger.info("Indexed " + players + " players from punishment history");
+        }));
+
+        // Range bans keep the network address in ip_address and the CIDR prefix length here
+        migrations.add(new Migration(6, "add ip_prefix for range bans", conn -> {
+            if (columnType(conn, "punishments", "ip_prefix") == null) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE punishments ADD COLUMN ip_prefix SMALLINT NULL AFTER ip_address, ALGORITHM=INPLACE, LOCK=NONE");
+                }
+            }
+        }));
+
+        // Rows written before this version keep updated_at = 0; a full load covers them
+        migrations.add(new Migration(7, "track punishment changes in updated_at", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                if (columnType(conn, "punishments", "updated_at") == null) {
+                    stmt.execute("ALTER TABLE punishments ADD COLUMN updated_at BIGINT NOT NULL DEFAULT 0, ALGORITHM=INPLACE, LOCK=NONE");
+                }
+                if (!indexExists(conn, "punishments", "idx_updated_at")) {
+                    stmt.execute("ALTER TABLE punishments ADD INDEX idx_updated_at (updated_at), ALGORITHM=INPLACE, LOCK=NONE");
+                }
+            }
+        }));
+
+        return migrations;
+    }
+
+    // Each phase checks the columns first so a conversion interrupted part way resumes where it stopped
+    private void convertToBinaryIds(Connection conn) throws SQLException {
+        String uuidType = columnType(conn, "punishments", "player_uuid");
+        if ("binary".equalsIgnoreCase(uuidType)) {
+            return;
+        }
 
         try (Statement stmt = conn.createStatement()) {
-            stmt.execute(createPunishmentsTable);
+            if (columnType(conn, "punishments", "player_uuid_bin") == null) {
+                stmt.execute("""
+                        ALTER TABLE punishments
+                            ADD COLUMN player_uuid_bin BINARY(16) NULL AFTER player_uuid,
+                            ADD COLUMN ip_address_bin VARBINARY(16) NULL AFTER ip_address,
+                            ALGORITHM=INPLACE, LOCK=NONE
+                        """);
+            }
+
+            if (uuidType != null) {
+                backfillBinaryIds(conn);
+                stmt.execute("""
+                        ALTER TABLE punishments
+                            DROP INDEX unique_punishment,
+                            DROP INDEX idx_player_uuid,
+                            DROP INDEX idx_ip_address,
+                            DROP COLUMN player_uuid,
+                            DROP COLUMN ip_address,
+                            ALGORITHM=INPLACE, LOCK=NONE
+                        """);
+            }
+
+            stmt.execute("""
+                    ALTER TABLE punishments
+                        CHANGE COLUMN player_uuid_bin player_uuid BINARY(16) NOT NULL,
+                        CHANGE COLUMN ip_address_bin ip_address VARBINARY(16) NULL,
+                        ADD UNIQUE KEY unique_punishment (player_uuid, created_at),
+                        ADD INDEX idx_player_uuid (player_uuid),
+                        ADD INDEX idx_ip_address (ip_address),
+                        ALGORITHM=INPLACE, LOCK=NONE
+                    """);
+        }
+    }
+
+    private void backfillBinaryIds(Connection conn) throws SQLException {
+        long maxId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM punishments")) {
+            rs.next();
+            maxId = rs.getLong(1);
+        }
+
+        // Committed per id range so a large table never holds one long-running transaction
+        String sql = """
+                UPDATE punishments
+                SET player_uuid_bin = UNHEX(REPLACE(player_uuid, '-', '')),
+                    ip_address_bin = INET6_ATON(ip_address)
+                WHERE id > ? AND id <= ? AND player_uuid_bin IS NULL
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (long from = 0; from < maxId; from += BACKFILL_BATCH_SIZE) {
+                stmt.setLong(1, from);
+                stmt.setLong(2, from + BACKFILL_BATCH_SIZE);
+                stmt.executeUpdate();
+                conn.commit();
+            }
+        }
+    }
+
+    private ColumnCodec detectCodec(Connection conn, String table, String column) throws SQLException {
+        return "binary".equalsIgnoreCase(columnType(conn, table, column)) ? ColumnCodec.BINARY : ColumnCodec.TEXT;
+    }
+
+    private String columnType(Connection conn, String table, String column) throws SQLException {
+        String sql = """
+                SELECT data_type FROM information_schema.columns
+                WHERE table_schema = DATABASE() AND table_name = ? AND column_name = ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, column);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private boolean indexExists(Connection conn, String table, String index) throws SQLException {
+        String sql = """
+                SELECT 1 FROM information_schema.statistics
+                WHERE table_schema = DATABASE() AND table_name = ? AND index_name = ?
+                LIMIT 1
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, table);
+            stmt.setString(2, index);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
         }
     }
 
@@ -100,77 +314,118 @@ public class MysqlStorage implements StorageManager {
         return ready && !dataSource.isClosed();
     }
 
+    @Override
+    public StorageMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Live connection pool counters, or {@code null} once the pool is closed.
+     */
+    public HikariPoolMXBean getPoolStats() {
+        return dataSource.isClosed() ? null : dataSource.getHikariPoolMXBean();
+    }
+
     @Override
     public void close() {
+        writeQueue.close(SHUTDOWN_FLUSH_TIMEOUT_MILLIS);
+        executor.shutdown();
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
         }
-        executor.shutdown();
     }
 
     @Override
     public CompletableFuture<Void> savePunishment(Punishment punishment) {
-        return CompletableFuture.runAsync(() -> {
+        return writeQueue.enqueueInsert(punishment);
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePunishment(Punishment punishment) {
+        return writeQueue.enqueueUpdate(punishment);
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePunishments(List<Punishment> punishments) {
+        return writeQueue.enqueueUpdates(punishments);
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
+            List<Punishment> punishments = new ArrayList<>();
+
             try (Connection conn = dataSource.getConnection()) {
                 String sql = """
-                        INSERT INTO punishments (player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active)
-                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE player_uuid = ? AND active = true
                         """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, punishment.getPlayerUUID().toString());
-                    stmt.setString(2, punishment.getPlayerName());
-                    stmt.setString(3, punishment.getIpAddress());
-                    stmt.setString(4, punishment.getType().toString());
-                    stmt.setString(5, punishment.getReason());
-                    stmt.setString(6, punishment.getOperator());
-                    stmt.setLong(7, punishment.getCreatedAt());
-                    stmt.setLong(8, punishment.getExpiresAt());
-                    stmt.setBoolean(9, punishment.isActive());
-                    stmt.executeUpdate();
+                    codec.setUUID(stmt, 1, playerUUID);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            punishments.add(resultSetToPunishment(rs));
+                        }
+                    }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to save punishment: " + e.getMessage());
+                logger.warning("Failed to get active punishments: " + e.getMessage());
             }
+
+            return punishments;
         }, executor);
     }
 
     @Override
-    public CompletableFuture<Void> updatePunishment(Punishment punishment) {
-        return CompletableFuture.runAsync(() -> {
+    public CompletableFuture<List<Punishment>> getAllActivePunishments() {
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
+            List<Punishment> punishments = new ArrayList<>();
+
             try (Connection conn = dataSource.getConnection()) {
                 String sql = """
-                        UPDATE punishments
-                        SET active = ?
-                        WHERE player_uuid = ? AND created_at = ?
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE active = true
                         """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setBoolean(1, punishment.isActive());
-                    stmt.setString(2, punishment.getPlayerUUID().toString());
-                    stmt.setLong(3, punishment.getCreatedAt());
-                    stmt.executeUpdate();
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            punishments.add(resultSetToPunishment(rs));
+                        }
+                    }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to update punishment: " + e.getMessage());
+                // An empty list would be taken as "nobody is punished", so the caller must see the failure
+                throw new IllegalStateException("Failed to load active punishments: " + e.getMessage(), e);
             }
+
+            return punishments;
         }, executor);
     }
 
     @Override
-    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
+    public CompletableFuture<List<Punishment>> getPunishmentsUpdatedSince(long since) {
         return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
             List<Punishment> punishments = new ArrayList<>();
 
             try (Connection conn = dataSource.getConnection()) {
                 String sql = """
-                        SELECT player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
                         FROM punishments
-                        WHERE player_uuid = ? AND active = true
+                        WHERE updated_at > ?
                         """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerUUID.toString());
+                    stmt.setLong(1, since);
                     try (ResultSet rs = stmt.executeQuery()) {
                         while (rs.next()) {
                             punishments.add(resultSetToPunishment(rs));
@@ -178,7 +433,7 @@ public class MysqlStorage implements StorageManager {
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get active punishments: " + e.getMessage());
+                logger.warning("Failed to get changed punishments: " + e.getMessage());
             }
 
             return punishments;
@@ -188,18 +443,20 @@ public class MysqlStorage implements StorageManager {
     @Override
     public CompletableFuture<List<Punishment>> getPunishmentHistory(UUID playerUUID) {
         return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
             List<Punishment> punishments = new ArrayList<>();
 
             try (Connection conn = dataSource.getConnection()) {
                 String sql = """
-                        SELECT player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
                         FROM punishments
                         WHERE player_uuid = ?
                         ORDER BY created_at DESC
                         """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerUUID.toString());
+                    codec.setUUID(stmt, 1, playerUUID);
                     try (ResultSet rs = stmt.executeQuery()) {
                         while (rs.next()) {
                             punishments.add(resultSetToPunishment(rs));
@@ -207,29 +464,140 @@ public class MysqlStorage implements StorageManager {
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get punishment history: " + e.getMessage());
+                logger.warning("Failed to get punishment history: " + e.getMessage());
             }
 
             return punishments;
         }, executor);
     }
 
+    // InnoDB secondary indexes carry the primary key, so unique_punishment serves this as a range scan
     @Override
-    public CompletableFuture<UUID> getOfflineUUID(String playerName) {
+    public CompletableFuture<List<Punishment>> getPunishmentHistoryPage(UUID playerUUID, HistoryCursor after, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
+            List<Punishment> punishments = new ArrayList<>(limit);
+
+            try (Connection conn = dataSource.getConnection()) {
+                String sql = """
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE player_uuid = ? AND created_at <= ? AND (created_at < ? OR id < ?)
+                        ORDER BY created_at DESC, id DESC
+                        LIMIT ?
+                        """;
+
+                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                    codec.setUUID(stmt, 1, playerUUID);
+                    stmt.setLong(2, after.createdAt());
+                    stmt.setLong(3, after.createdAt());
+                    stmt.setLong(4, after.id());
+                    stmt.setInt(5, limit);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            punishments.add(resultSetToPunishment(rs));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to get punishment history page: " + e.getMessage());
+            }
+
+            return punishments;
+        }, executor);
+    }
+
+    // Position of the row at offset in history order, for jumping to a page without walking the ones before it
+    @Override
+    public CompletableFuture<HistoryCursor> getHistoryCursor(UUID playerUUID, long offset) {
         return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
             try (Connection conn = dataSource.getConnection()) {
-                String sql = "SELECT DISTINCT player_uuid FROM punishments WHERE player_name = ? LIMIT 1";
+                String sql = """
+                        SELECT created_at, id
+                        FROM punishments
+                        WHERE player_uuid = ?
+                        ORDER BY created_at DESC, id DESC
+                        LIMIT 1 OFFSET ?
+                        """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerName);
+                    codec.setUUID(stmt, 1, playerUUID);
+                    stmt.setLong(2, offset);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        if (rs.next()) {
+                            return new HistoryCursor(rs.getLong("created_at"), rs.getLong("id"));
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to get punishment history cursor: " + e.getMessage());
+            }
+
+            return null;
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> recordPlayer(UUID playerUUID, String playerName, String ipAddress, long seenAt) {
+        return CompletableFuture.runAsync(() -> {
+            String nameLower = PlayerTable.lower(playerName);
+
+            try (Connection conn = dataSource.getConnection()) {
+                String upsertSql = """
+                        INSERT INTO players (uuid, name, name_lower, last_ip, first_seen, last_seen)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        ON DUPLICATE KEY UPDATE
+                            name = VALUES(name),
+                            name_lower = VALUES(name_lower),
+                            last_ip = COALESCE(VALUES(last_ip), last_ip),
+                            last_seen = GREATEST(last_seen, VALUES(last_seen))
+                        """;
+
+                conn.setAutoCommit(false);
+                try (PreparedStatement release = conn.prepareStatement(PlayerTable.RELEASE_NAME_SQL);
+                     PreparedStatement upsert = conn.prepareStatement(upsertSql)) {
+                    release.setString(1, nameLower);
+                    playerCodec.setUUID(release, 2, playerUUID);
+                    release.executeUpdate();
+
+                    playerCodec.setUUID(upsert, 1, playerUUID);
+                    upsert.setString(2, playerName);
+                    upsert.setString(3, nameLower);
+                    playerCodec.setIp(upsert, 4, ipAddress);
+                    upsert.setLong(5, seenAt);
+                    upsert.setLong(6, seenAt);
+                    upsert.executeUpdate();
+
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to record player: " + e.getMessage());
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<UUID> getOfflineUUID(String playerName) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (Connection conn = dataSource.getConnection()) {
+                try (PreparedStatement stmt = conn.prepareStatement(PlayerTable.FIND_UUID_SQL)) {
+                    stmt.setString(1, PlayerTable.lower(playerName));
                     try (ResultSet rs = stmt.executeQuery()) {
                         if (rs.next()) {
-                            return UUID.fromString(rs.getString("player_uuid"));
+                            return playerCodec.getUUID(rs, "uuid");
                         }
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get offline UUID: " + e.getMessage());
+                logger.warning("Failed to get offline UUID: " + e.getMessage());
             }
 
             return null;
@@ -242,17 +610,15 @@ public class MysqlStorage implements StorageManager {
             List<String> names = new ArrayList<>();
 
             try (Connection conn = dataSource.getConnection()) {
-                String sql = "SELECT DISTINCT player_name FROM punishments ORDER BY player_name";
-
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                try (PreparedStatement stmt = conn.prepareStatement(PlayerTable.KNOWN_NAMES_SQL)) {
                     try (ResultSet rs = stmt.executeQuery()) {
                         while (rs.next()) {
-                            names.add(rs.getString("player_name"));
+                            names.add(rs.getString("name"));
                         }
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get known player names: " + e.getMessage());
+                logger.warning("Failed to get known player names: " + e.getMessage());
             }
 
             return names;
@@ -262,17 +628,19 @@ public class MysqlStorage implements StorageManager {
     @Override
     public CompletableFuture<List<Punishment>> getPunishmentsByIP(String ipAddress) {
         return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
             List<Punishment> punishments = new ArrayList<>();
 
             try (Connection conn = dataSource.getConnection()) {
                 String sql = """
-                        SELECT player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
                         FROM punishments
                         WHERE ip_address = ? AND active = true
                         """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, ipAddress);
+                    codec.setIp(stmt, 1, ipAddress);
                     try (ResultSet rs = stmt.executeQuery()) {
                         while (rs.next()) {
                             punishments.add(resultSetToPunishment(rs));
@@ -280,30 +648,85 @@ public class MysqlStorage implements StorageManager {
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get punishments by IP: " + e.getMessage());
+                logger.warning("Failed to get punishments by IP: " + e.getMessage());
             }
 
             return punishments;
         }, executor);
     }
 
+    @Override
+    public CompletableFuture<List<Punishment>> expireDue(long now) {
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
+            List<Punishment> expired = new ArrayList<>();
+
+            try (Connection conn = dataSource.getConnection()) {
+                String selectSql = """
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE active = true AND expires_at BETWEEN 0 AND ?
+                        FOR UPDATE
+                        """;
+                String updateSql = "UPDATE punishments SET active = false, updated_at = ? WHERE active = true AND expires_at BETWEEN 0 AND ?";
+
+                conn.setAutoCommit(false);
+                try {
+                    try (PreparedStatement select = conn.prepareStatement(selectSql)) {
+                        select.setLong(1, now);
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) {
+                                Punishment punishment = resultSetToPunishment(rs);
+                                punishment.setActive(false);
+                                expired.add(punishment);
+                            }
+                        }
+                    }
+
+                    if (!expired.isEmpty()) {
+                        try (PreparedStatement update = conn.prepareStatement(updateSql)) {
+                            update.setLong(1, System.currentTimeMillis());
+                            update.setLong(2, now);
+                            update.executeUpdate();
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    expired.clear();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to expire punishments: " + e.getMessage());
+            }
+
+            return expired;
+        }, executor);
+    }
+
     @Override
     public CompletableFuture<Void> deletePunishment(UUID playerUUID, int punishmentIndex) {
         return CompletableFuture.runAsync(() -> {
+            writeQueue.flush();
+
             try (Connection conn = dataSource.getConnection()) {
                 String sql = """
                         UPDATE punishments
-                        SET active = false
+                        SET active = false, updated_at = ?
                         WHERE player_uuid = ?
                         LIMIT 1
                         """;
 
                 try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerUUID.toString());
+                    stmt.setLong(1, System.currentTimeMillis());
+                    codec.setUUID(stmt, 2, playerUUID);
                     stmt.executeUpdate();
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to delete punishment: " + e.getMessage());
+                logger.warning("Failed to delete punishment: " + e.getMessage());
             }
         }, executor);
     }
@@ -311,22 +734,25 @@ public class MysqlStorage implements StorageManager {
     @Override
     public CompletableFuture<Void> clearAll() {
         return CompletableFuture.runAsync(() -> {
+            writeQueue.flush();
+
             try (Connection conn = dataSource.getConnection()) {
                 String sql = "DELETE FROM punishments";
                 try (Statement stmt = conn.createStatement()) {
                     stmt.executeUpdate(sql);
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to clear all data: " + e.getMessage());
+                logger.warning("Failed to clear all data: " + e.getMessage());
             }
         }, executor);
     }
 
     private Punishment resultSetToPunishment(ResultSet rs) throws SQLException {
         return new Punishment(
-                UUID.fromString(rs.getString("player_uuid")),
+                rs.getLong("id"),
+                codec.getUUID(rs, "player_uuid"),
                 rs.getString("player_name"),
-                rs.getString("ip_address"),
+                codec.getIpRange(rs, "ip_address", "ip_prefix"),
                 PunishmentType.valueOf(rs.getString("type")),
                 rs.getString("reason"),
                 rs.getString("operator"),
@@ -336,6 +762,23 @@ public class MysqlStorage implements StorageManager {
         );
     }
 
+    private class PooledConnectionSource implements WriteBehindQueue.ConnectionSource {
+
+        @Override
+        public StatementCache acquire() throws SQLException {
+            return new StatementCache(dataSource.getConnection());
+        }
+
+        @Override
+        public void release(StatementCache statements) {
+            try {
+                statements.close();
+            } catch (SQLException e) {
+                logger.warning("Failed to release connection: " + e.getMessage());
+            }
+        }
+    }
+
     private int toInt(Object obj) {
         if (obj instanceof Number) {
             return ((Number) obj).intValue();
@@ -0,0 +1,96 @@
+package dev.insanmiy.trueban.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Shared pieces of the {@code players} table: one row per player UUID with the current name, a lowercase
+ * copy under a unique index for name lookups, and the last known IP. A name that moves to another UUID is
+ * released from its previous owner by clearing that row's {@code name_lower}.
+ */
+final class PlayerTable {
+
+    static final String RELEASE_NAME_SQL = "UPDATE players SET name_lower = NULL WHERE name_lower = ? AND uuid <> ?";
+    static final String FIND_UUID_SQL = "SELECT uuid FROM players WHERE name_lower = ?";
+    static final String KNOWN_NAMES_SQL = "SELECT name FROM players WHERE name_lower IS NOT NULL ORDER BY name_lower";
+
+    private static final int BACKFILL_BATCH_SIZE = 1000;
+
+    private record Seen(UUID uuid, String name, String ipAddress, long lastSeen, long firstSeen) {
+    }
+
+    private PlayerTable() {
+    }
+
+    static String lower(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Fills an empty players table from punishment history. The newest punishment per UUID supplies the name
+     * and IP; if two UUIDs share a name, the one seen most recently keeps it.
+     */
+    static int backfill(Connection conn, ColumnCodec codec) throws SQLException {
+        Map<UUID, Seen> players = new LinkedHashMap<>();
+
+        String selectSql = """
+                SELECT player_uuid, player_name, ip_address, created_at
+                FROM punishments
+                WHERE type <> 'IPBAN'
+                ORDER BY created_at DESC
+                """;
+
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                UUID uuid = codec.getUUID(rs, "player_uuid");
+                long createdAt = rs.getLong("created_at");
+                Seen seen = players.get(uuid);
+                if (seen == null) {
+                    players.put(uuid, new Seen(uuid, rs.getString("player_name"), codec.getIp(rs, "ip_address"), createdAt, createdAt));
+                } else {
+                    players.put(uuid, new Seen(uuid, seen.name(), seen.ipAddress(), seen.lastSeen(), createdAt));
+                }
+            }
+        }
+
+        String insertSql = """
+                INSERT INTO players (uuid, name, name_lower, last_ip, first_seen, last_seen)
+                VALUES (?, ?, ?, ?, ?, ?)
+                """;
+
+        Set<String> takenNames = new HashSet<>();
+        int pending = 0;
+
+        try (PreparedStatement stmt = conn.prepareStatement(insertSql)) {
+            for (Seen seen : players.values()) {
+                String nameLower = lower(seen.name());
+                codec.setUUID(stmt, 1, seen.uuid());
+                stmt.setString(2, seen.name());
+                stmt.setString(3, takenNames.add(nameLower) ? nameLower : null);
+                codec.setIp(stmt, 4, seen.ipAddress());
+                stmt.setLong(5, seen.firstSeen());
+                stmt.setLong(6, seen.lastSeen());
+                stmt.addBatch();
+
+                if (++pending == BACKFILL_BATCH_SIZE) {
+                    stmt.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                stmt.executeBatch();
+            }
+        }
+
+        return players.size();
+    }
+}
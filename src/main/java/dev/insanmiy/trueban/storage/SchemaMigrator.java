@@ -0,0 +1,96 @@
+package dev.insanmiy.trueban.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Applies pending {@link Migration}s in version order and records each one in the {@code schema_version} table.
+ */
+class SchemaMigrator {
+
+    private static final String CREATE_VERSION_TABLE = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INTEGER NOT NULL PRIMARY KEY,
+                description VARCHAR(255) NOT NULL,
+                applied_at BIGINT NOT NULL
+            )
+            """;
+
+    private final Logger logger;
+
+    SchemaMigrator(Logger logger) {
+        this.logger = logger;
+    }
+
+    int migrate(Connection conn, List<Migration> migrations) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_VERSION_TABLE);
+        }
+
+        // Checked per version rather than against the maximum, so an optional migration enabled later still runs
+        Set<Integer> applied = appliedVersions(conn);
+        List<Migration> pending = new ArrayList<>();
+        for (Migration migration : migrations) {
+            if (!applied.contains(migration.version())) {
+                pending.add(migration);
+            }
+        }
+        pending.sort(Comparator.comparingInt(Migration::version));
+
+        boolean autoCommit = conn.getAutoCommit();
+        try {
+            for (Migration migration : pending) {
+                apply(conn, migration);
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+
+        return pending.size();
+    }
+
+    Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT version FROM schema_version")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private void apply(Connection conn, Migration migration) throws SQLException {
+        logger.info("Applying schema migration " + migration.version() + ": " + migration.description());
+        long started = System.currentTimeMillis();
+
+        conn.setAutoCommit(false);
+        try {
+            migration.step().apply(conn);
+
+            try (PreparedStatement stmt = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description, applied_at) VALUES (?, ?, ?)")) {
+                stmt.setInt(1, migration.version());
+                stmt.setString(2, migration.description());
+                stmt.setLong(3, System.currentTimeMillis());
+                stmt.executeUpdate();
+            }
+
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("Schema migration " + migration.version() + " failed: " + e.getMessage(), e);
+        }
+
+        logger.info("Schema migration " + migration.version() + " applied in " + (System.currentTimeMillis() - started) + "ms");
+    }
+}
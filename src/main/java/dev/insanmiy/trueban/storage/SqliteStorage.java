@@ -1,82 +1,307 @@
 package dev.insanmiy.trueban.storage;
 
+import dev.insanmiy.trueban.TrueBan;
+import dev.insanmiy.trueban.config.ConfigManager;
 import dev.insanmiy.trueban.punishment.Punishment;
 import dev.insanmiy.trueban.punishment.PunishmentType;
 import org.bukkit.plugin.java.JavaPlugin;
 
+import java.io.File;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
 
 public class SqliteStorage implements StorageManager {
 
-    private final JavaPlugin plugin;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MILLIS = 5000;
+    private static final int REBUILD_BATCH_SIZE = 5000;
+    private static final Set<String> JOURNAL_MODES = Set.of("WAL", "DELETE", "TRUNCATE", "PERSIST", "MEMORY", "OFF");
+    private static final Set<String> SYNCHRONOUS_LEVELS = Set.of("OFF", "NORMAL", "FULL", "EXTRA");
+
+    private final Logger logger;
     private final String databasePath;
+    private final StorageMetrics metrics = new StorageMetrics();
     private final ScheduledExecutorService executor;
+    private final ExecutorService readExecutor;
+    private final WriteBehindQueue writeQueue;
+    private final List<StatementCache> readConnections = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<StatementCache> readStatementsByThread = new ThreadLocal<>();
+    private final String journalMode;
+    private final String synchronous;
+    private final long mmapSizeBytes;
+    private final long cacheSizeKb;
+    private final int busyTimeoutMillis;
+    private final boolean binaryIds;
+    private StatementCache writeStatements;
+    private ColumnCodec codec = ColumnCodec.TEXT;
+    private ColumnCodec playerCodec = ColumnCodec.TEXT;
     private volatile boolean ready;
 
     public SqliteStorage(JavaPlugin plugin) throws Exception {
-        this.plugin = plugin;
-        this.databasePath = Paths.get(plugin.getDataFolder().getAbsolutePath(), "trueban.db").toString();
-        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "TrueBan-SqliteStorage");
-            t.setDaemon(true);
-            return t;
-        });
+        this(plugin.getLogger(), plugin.getDataFolder(), ((TrueBan) plugin).getConfigManager());
+    }
+
+    // Needs no running server, so tools and benchmarks can open a database directly
+    public SqliteStorage(Logger logger, File dataFolder, ConfigManager config) throws Exception {
+        this.logger = logger;
+        this.databasePath = Paths.get(dataFolder.getAbsolutePath(), config.getString("sqlite.file", "trueban.db")).toString();
+        this.journalMode = pragmaValue(config.getString("sqlite.journal-mode", "WAL"), JOURNAL_MODES, "WAL");
+        this.synchronous = pragmaValue(config.getString("sqlite.synchronous", "NORMAL"), SYNCHRONOUS_LEVELS, "NORMAL");
+        this.mmapSizeBytes = Math.max(0, config.getInt("sqlite.mmap-size-mb", 64)) * 1024L * 1024L;
+        this.cacheSizeKb = Math.max(0, config.getInt("sqlite.cache-size-kb", 16384));
+        this.busyTimeoutMillis = Math.max(0, config.getInt("sqlite.busy-timeout-millis", 5000));
+        int readConnectionCount = Math.max(1, config.getInt("sqlite.read-connections", 2));
+        this.binaryIds = config.getBoolean("settings.binary-ids", false);
+
+        this.executor = new InstrumentedExecutor("TrueBan-SqliteStorage", 1, metrics);
+        this.readExecutor = new InstrumentedExecutor("TrueBan-SqliteReader", readConnectionCount, metrics);
 
         initializeDatabase();
+
+        this.writeQueue = new WriteBehindQueue(logger, new WriterConnectionSource(), codec, executor,
+                config.getWriteBatchSize(), config.getWriteFlushIntervalMillis());
+        metrics.setPendingWrites(writeQueue::pendingCount);
         this.ready = true;
     }
 
     private void initializeDatabase() throws Exception {
-        Files.createDirectories(Paths.get(plugin.getDataFolder().getAbsolutePath()));
-
-        try (Connection conn = getConnection()) {
-            createTables(conn);
-        }
+        Files.createDirectories(Paths.get(databasePath).getParent());
+
+        // The writer connection lives on the storage thread for the lifetime of the plugin
+        executor.submit(() -> {
+            Connection conn = openConnection();
+            applyWriterPragmas(conn);
+            int applied = new SchemaMigrator(logger).migrate(conn, migrations());
+            if (applied > 0) {
+                logger.info("Applied " + applied + " SQLite schema migrations");
+            }
+            codec = detectCodec(conn, "punishments", "player_uuid");
+            playerCodec = detectCodec(conn, "players", "uuid");
+            writeStatements = new StatementCache(conn);
+            return null;
+        }).get();
     }
 
-    private Connection getConnection() throws SQLException {
+    private Connection openConnection() throws SQLException {
         String url = "jdbc:sqlite:" + databasePath;
         return DriverManager.getConnection(url);
     }
 
-    private void createTables(Connection conn) throws SQLException {
-        String createPunishmentsTable = """
-                CREATE TABLE IF NOT EXISTS punishments (
+    private void applyWriterPragmas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            try (ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = " + journalMode)) {
+                if (rs.next() && !journalMode.equalsIgnoreCase(rs.getString(1))) {
+                    logger.warning("SQLite refused journal_mode " + journalMode + ", using " + rs.getString(1));
+                }
+            }
+            stmt.execute("PRAGMA synchronous = " + synchronous);
+            stmt.execute("PRAGMA mmap_size = " + mmapSizeBytes);
+            stmt.execute("PRAGMA cache_size = -" + cacheSizeKb);
+        }
+    }
+
+    private void applyReaderPragmas(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            stmt.execute("PRAGMA query_only = 1");
+            stmt.execute("PRAGMA mmap_size = " + mmapSizeBytes);
+            stmt.execute("PRAGMA cache_size = -" + cacheSizeKb);
+        }
+    }
+
+    private StatementCache readStatements() throws SQLException {
+        StatementCache statements = readStatementsByThread.get();
+        if (statements == null) {
+            Connection conn = openConnection();
+            applyReaderPragmas(conn);
+            statements = new StatementCache(conn);
+            readStatementsByThread.set(statements);
+            readConnections.add(statements);
+        }
+        return statements;
+    }
+
+    // Reads run on the reader pool; any writes still queued are committed first so callers see their own writes
+    private <T> CompletableFuture<T> supplyRead(Supplier<T> query) {
+        if (!writeQueue.hasPending()) {
+            return CompletableFuture.supplyAsync(query, readExecutor);
+        }
+        return writeQueue.flushAsync().thenApplyAsync(ignored -> query.get(), readExecutor);
+    }
+
+    private String pragmaValue(String value, Set<String> allowed, String fallback) {
+        String normalized = value.trim().toUpperCase(Locale.ROOT);
+        if (allowed.contains(normalized)) {
+            return normalized;
+        }
+        logger.warning("Invalid SQLite setting '" + value + "', using " + fallback);
+        return fallback;
+    }
+
+    private List<Migration> migrations() {
+        List<Migration> migrations = new ArrayList<>();
+
+        migrations.add(new Migration(1, "create punishments table", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS punishments (
+                            id INTEGER PRIMARY KEY AUTOINCREMENT,
+                            player_uuid TEXT NOT NULL,
+                            player_name TEXT NOT NULL,
+                            ip_address TEXT,
+                            type TEXT NOT NULL,
+                            reason TEXT NOT NULL,
+                            operator TEXT NOT NULL,
+                            created_at INTEGER NOT NULL,
+                            expires_at INTEGER NOT NULL,
+                            active BOOLEAN NOT NULL DEFAULT 1,
+                            UNIQUE(player_uuid, created_at)
+                        )
+                        """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_player_uuid ON punishments(player_uuid)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_ip_address ON punishments(ip_address)");
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_active ON punishments(active)");
+            }
+        }));
+
+        migrations.add(new Migration(2, "index punishments by (active, expires_at)", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_active_expires ON punishments(active, expires_at)");
+            }
+        }));
+
+        // Opt-in; once applied the table stays binary, and detectCodec picks the format up from the column type
+        if (binaryIds) {
+            migrations.add(new Migration(3, "store UUIDs and IP addresses as binary", conn -> {
+                if (detectCodec(conn, "punishments", "player_uuid").isBinary()) {
+                    return;
+                }
+                binaryIdRebuild(columnType(conn, "punishments", "ip_prefix") != null,
+                        columnType(conn, "punishments", "updated_at") != null).run(conn, logger);
+            }));
+        }
+
+        // The players table takes whichever UUID/IP format punishments uses when it is created
+        migrations.add(new Migration(4, "create players table", conn -> {
+            ColumnCodec current = detectCodec(conn, "punishments", "player_uuid");
+            String idType = current.isBinary() ? "BLOB" : "TEXT";
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                        CREATE TABLE IF NOT EXISTS players (
+                            uuid %s NOT NULL PRIMARY KEY,
+                            name TEXT NOT NULL,
+                            name_lower TEXT,
+                            last_ip %s,
+                            first_seen INTEGER NOT NULL,
+                            last_seen INTEGER NOT NULL
+                        )
+                        """.formatted(idType, idType));
+                stmt.execute("CREATE UNIQUE INDEX IF NOT EXISTS idx_players_name_lower ON players(name_lower)");
+                stmt.execute("DELETE FROM players");
+            }
+
+            int players = PlayerTable.backfill(conn, current);
+            logger.info("Indexed " + players + " players from punishment history");
+        }));
+
+        // Range bans keep the network address in ip_address and the CIDR prefix length here
+        migrations.add(new Migration(5, "add ip_prefix for range bans", conn -> {
+            if (columnType(conn, "punishments", "ip_prefix") == null) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute("ALTER TABLE punishments ADD COLUMN ip_prefix INTEGER");
+                }
+            }
+        }));
+
+        // Rows written before this version keep updated_at = 0; a full load covers them
+        migrations.add(new Migration(6, "track punishment changes in updated_at", conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                if (columnType(conn, "punishments", "updated_at") == null) {
+                    stmt.execute("ALTER TABLE punishments ADD COLUMN updated_at INTEGER NOT NULL DEFAULT 0");
+                }
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_updated_at ON punishments(updated_at)");
+            }
+        }));
+
+        return migrations;
+    }
+
+    private SqliteTableRebuild binaryIdRebuild(boolean hasIpPrefix, boolean hasUpdatedAt) {
+        String createSql = """
+                CREATE TABLE %s (
                     id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    player_uuid TEXT NOT NULL,
+                    player_uuid BLOB NOT NULL,
                     player_name TEXT NOT NULL,
-                    ip_address TEXT,
+                    ip_address BLOB,
+                    ip_prefix INTEGER,
                     type TEXT NOT NULL,
                     reason TEXT NOT NULL,
                     operator TEXT NOT NULL,
                     created_at INTEGER NOT NULL,
                     expires_at INTEGER NOT NULL,
                     active BOOLEAN NOT NULL DEFAULT 1,
+                    updated_at INTEGER NOT NULL DEFAULT 0,
                     UNIQUE(player_uuid, created_at)
                 )
                 """;
-
-        String createIndexes = """
-                CREATE INDEX IF NOT EXISTS idx_player_uuid ON punishments(player_uuid);
-                CREATE INDEX IF NOT EXISTS idx_ip_address ON punishments(ip_address);
-                CREATE INDEX IF NOT EXISTS idx_active ON punishments(active);
+        String insertSql = """
+                INSERT INTO %s (id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active, updated_at)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
                 """;
 
-        try (Statement stmt = conn.createStatement()) {
-            stmt.execute(createPunishmentsTable);
-            for (String index : createIndexes.split(";")) {
-                if (!index.trim().isEmpty()) {
-                    stmt.execute(index);
+        return new SqliteTableRebuild("punishments", createSql,
+                "player_uuid, player_name, ip_address, " + (hasIpPrefix ? "ip_prefix" : "NULL AS ip_prefix")
+                        + ", type, reason, operator, created_at, expires_at, active, "
+                        + (hasUpdatedAt ? "updated_at" : "0 AS updated_at"),
+                insertSql,
+                (rs, stmt) -> {
+                    stmt.setLong(1, rs.getLong("id"));
+                    ColumnCodec.BINARY.setUUID(stmt, 2, UUID.fromString(rs.getString("player_uuid")));
+                    stmt.setString(3, rs.getString("player_name"));
+                    ColumnCodec.BINARY.setIp(stmt, 4, rs.getString("ip_address"));
+                    stmt.setObject(5, rs.getObject("ip_prefix"));
+                    stmt.setString(6, rs.getString("type"));
+                    stmt.setString(7, rs.getString("reason"));
+                    stmt.setString(8, rs.getString("operator"));
+                    stmt.setLong(9, rs.getLong("created_at"));
+                    stmt.setLong(10, rs.getLong("expires_at"));
+                    stmt.setBoolean(11, rs.getBoolean("active"));
+                    stmt.setLong(12, rs.getLong("updated_at"));
+                },
+                List.of(
+                        "CREATE INDEX idx_player_uuid ON punishments(player_uuid)",
+                        "CREATE INDEX idx_ip_address ON punishments(ip_address)",
+                        "CREATE INDEX idx_active ON punishments(active)",
+                        "CREATE INDEX idx_active_expires ON punishments(active, expires_at)",
+                        "CREATE INDEX idx_updated_at ON punishments(updated_at)"
+                ),
+                REBUILD_BATCH_SIZE);
+    }
+
+    private ColumnCodec detectCodec(Connection conn, String table, String column) throws SQLException {
+        return "BLOB".equalsIgnoreCase(columnType(conn, table, column)) ? ColumnCodec.BINARY : ColumnCodec.TEXT;
+    }
+
+    private String columnType(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return rs.getString("type");
                 }
             }
         }
+        return null;
     }
 
     @Override
@@ -84,209 +309,420 @@ public class SqliteStorage implements StorageManager {
         return ready;
     }
 
+    @Override
+    public StorageMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void close() {
+        writeQueue.close(SHUTDOWN_FLUSH_TIMEOUT_MILLIS);
+        readExecutor.shutdown();
+        executor.submit(() -> closeQuietly(writeStatements));
         executor.shutdown();
+        try {
+            readExecutor.awaitTermination(SHUTDOWN_FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            executor.awaitTermination(SHUTDOWN_FLUSH_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (StatementCache statements : readConnections) {
+            closeQuietly(statements);
+        }
+        readConnections.clear();
+    }
+
+    private void closeQuietly(StatementCache statements) {
+        if (statements == null) {
+            return;
+        }
+        try {
+            statements.close();
+        } catch (SQLException e) {
+            logger.warning("Failed to close SQLite connection: " + e.getMessage());
+        }
     }
 
     @Override
     public CompletableFuture<Void> savePunishment(Punishment punishment) {
-        return CompletableFuture.runAsync(() -> {
-            try (Connection conn = getConnection()) {
+        return writeQueue.enqueueInsert(punishment);
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePunishment(Punishment punishment) {
+        return writeQueue.enqueueUpdate(punishment);
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePunishments(List<Punishment> punishments) {
+        return writeQueue.enqueueUpdates(punishments);
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
+        return supplyRead(() -> {
+            List<Punishment> punishments = new ArrayList<>();
+
+            try {
+                StatementCache statements = readStatements();
                 String sql = """
-                        INSERT INTO punishments (player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active)
-                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE player_uuid = ? AND active = 1
                         """;
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, punishment.getPlayerUUID().toString());
-                    stmt.setString(2, punishment.getPlayerName());
-                    stmt.setString(3, punishment.getIpAddress());
-                    stmt.setString(4, punishment.getType().toString());
-                    stmt.setString(5, punishment.getReason());
-                    stmt.setString(6, punishment.getOperator());
-                    stmt.setLong(7, punishment.getCreatedAt());
-                    stmt.setLong(8, punishment.getExpiresAt());
-                    stmt.setBoolean(9, punishment.isActive());
-                    stmt.executeUpdate();
+                PreparedStatement stmt = statements.prepare(sql);
+                codec.setUUID(stmt, 1, playerUUID);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(resultSetToPunishment(rs));
+                    }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to save punishment: " + e.getMessage());
+                logger.warning("Failed to get active punishments: " + e.getMessage());
             }
-        }, executor).exceptionally(ex -> {
-            return null;
+
+            return punishments;
         });
     }
 
     @Override
-    public CompletableFuture<Void> updatePunishment(Punishment punishment) {
-        return CompletableFuture.runAsync(() -> {
-            try (Connection conn = getConnection()) {
+    public CompletableFuture<List<Punishment>> getAllActivePunishments() {
+        return supplyRead(() -> {
+            List<Punishment> punishments = new ArrayList<>();
+
+            try {
+                StatementCache statements = readStatements();
                 String sql = """
-                        UPDATE punishments
-                        SET active = ?
-                        WHERE player_uuid = ? AND created_at = ?
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE active = 1
                         """;
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setBoolean(1, punishment.isActive());
-                    stmt.setString(2, punishment.getPlayerUUID().toString());
-                    stmt.setLong(3, punishment.getCreatedAt());
-                    stmt.executeUpdate();
+                PreparedStatement stmt = statements.prepare(sql);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(resultSetToPunishment(rs));
+                    }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to update punishment: " + e.getMessage());
+                // An empty list would be taken as "nobody is punished", so the caller must see the failure
+                throw new IllegalStateException("Failed to load active punishments: " + e.getMessage(), e);
             }
-        }, executor);
+
+            return punishments;
+        });
     }
 
     @Override
-    public CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID) {
-        return CompletableFuture.supplyAsync(() -> {
+    public CompletableFuture<List<Punishment>> getPunishmentsUpdatedSince(long since) {
+        return supplyRead(() -> {
             List<Punishment> punishments = new ArrayList<>();
 
-            try (Connection conn = getConnection()) {
+            try {
+                StatementCache statements = readStatements();
                 String sql = """
-                        SELECT player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
                         FROM punishments
-                        WHERE player_uuid = ? AND active = 1
+                        WHERE updated_at > ?
                         """;
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerUUID.toString());
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            punishments.add(resultSetToPunishment(rs));
-                        }
+                PreparedStatement stmt = statements.prepare(sql);
+                stmt.setLong(1, since);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(resultSetToPunishment(rs));
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get active punishments: " + e.getMessage());
+                logger.warning("Failed to get changed punishments: " + e.getMessage());
             }
 
             return punishments;
-        }, executor);
+        });
     }
 
     @Override
     public CompletableFuture<List<Punishment>> getPunishmentHistory(UUID playerUUID) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyRead(() -> {
             List<Punishment> punishments = new ArrayList<>();
 
-            try (Connection conn = getConnection()) {
+            try {
+                StatementCache statements = readStatements();
                 String sql = """
-                        SELECT player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
                         FROM punishments
                         WHERE player_uuid = ?
                         ORDER BY created_at DESC
                         """;
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerUUID.toString());
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            punishments.add(resultSetToPunishment(rs));
-                        }
+                PreparedStatement stmt = statements.prepare(sql);
+                codec.setUUID(stmt, 1, playerUUID);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(resultSetToPunishment(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to get punishment history: " + e.getMessage());
+            }
+
+            return punishments;
+        });
+    }
+
+    // Served by the (player_uuid, created_at) unique index, which also carries the rowid, so each page is a range scan
+    @Override
+    public CompletableFuture<List<Punishment>> getPunishmentHistoryPage(UUID playerUUID, HistoryCursor after, int limit) {
+        return supplyRead(() -> {
+            List<Punishment> punishments = new ArrayList<>(limit);
+
+            try {
+                StatementCache statements = readStatements();
+                String sql = """
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE player_uuid = ? AND created_at <= ? AND (created_at < ? OR id < ?)
+                        ORDER BY created_at DESC, id DESC
+                        LIMIT ?
+                        """;
+
+                PreparedStatement stmt = statements.prepare(sql);
+                codec.setUUID(stmt, 1, playerUUID);
+                stmt.setLong(2, after.createdAt());
+                stmt.setLong(3, after.createdAt());
+                stmt.setLong(4, after.id());
+                stmt.setInt(5, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(resultSetToPunishment(rs));
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get punishment history: " + e.getMessage());
+                logger.warning("Failed to get punishment history page: " + e.getMessage());
             }
 
             return punishments;
+        });
+    }
+
+    // Position of the row at offset in history order, for jumping to a page without walking the ones before it
+    @Override
+    public CompletableFuture<HistoryCursor> getHistoryCursor(UUID playerUUID, long offset) {
+        return supplyRead(() -> {
+            try {
+                StatementCache statements = readStatements();
+                String sql = """
+                        SELECT created_at, id
+                        FROM punishments
+                        WHERE player_uuid = ?
+                        ORDER BY created_at DESC, id DESC
+                        LIMIT 1 OFFSET ?
+                        """;
+
+                PreparedStatement stmt = statements.prepare(sql);
+                codec.setUUID(stmt, 1, playerUUID);
+                stmt.setLong(2, offset);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return new HistoryCursor(rs.getLong("created_at"), rs.getLong("id"));
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to get punishment history cursor: " + e.getMessage());
+            }
+
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> recordPlayer(UUID playerUUID, String playerName, String ipAddress, long seenAt) {
+        return CompletableFuture.runAsync(() -> {
+            Connection conn = writeStatements.connection();
+            String nameLower = PlayerTable.lower(playerName);
+
+            try {
+                String upsertSql = """
+                        INSERT INTO players (uuid, name, name_lower, last_ip, first_seen, last_seen)
+                        VALUES (?, ?, ?, ?, ?, ?)
+                        ON CONFLICT(uuid) DO UPDATE SET
+                            name = excluded.name,
+                            name_lower = excluded.name_lower,
+                            last_ip = COALESCE(excluded.last_ip, players.last_ip),
+                            last_seen = MAX(players.last_seen, excluded.last_seen)
+                        """;
+
+                conn.setAutoCommit(false);
+                try {
+                    PreparedStatement release = writeStatements.prepare(PlayerTable.RELEASE_NAME_SQL);
+                    release.setString(1, nameLower);
+                    playerCodec.setUUID(release, 2, playerUUID);
+                    release.executeUpdate();
+
+                    PreparedStatement upsert = writeStatements.prepare(upsertSql);
+                    playerCodec.setUUID(upsert, 1, playerUUID);
+                    upsert.setString(2, playerName);
+                    upsert.setString(3, nameLower);
+                    playerCodec.setIp(upsert, 4, ipAddress);
+                    upsert.setLong(5, seenAt);
+                    upsert.setLong(6, seenAt);
+                    upsert.executeUpdate();
+
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to record player: " + e.getMessage());
+            }
         }, executor);
     }
 
     @Override
     public CompletableFuture<UUID> getOfflineUUID(String playerName) {
-        return CompletableFuture.supplyAsync(() -> {
-            try (Connection conn = getConnection()) {
-                String sql = "SELECT DISTINCT player_uuid FROM punishments WHERE LOWER(player_name) = LOWER(?) LIMIT 1";
-
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerName);
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        if (rs.next()) {
-                            return UUID.fromString(rs.getString("player_uuid"));
-                        }
+        return supplyRead(() -> {
+            try {
+                StatementCache statements = readStatements();
+
+                PreparedStatement stmt = statements.prepare(PlayerTable.FIND_UUID_SQL);
+                stmt.setString(1, PlayerTable.lower(playerName));
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return playerCodec.getUUID(rs, "uuid");
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get offline UUID: " + e.getMessage());
+                logger.warning("Failed to get offline UUID: " + e.getMessage());
             }
 
             return null;
-        }, executor);
+        });
     }
 
     @Override
     public CompletableFuture<List<String>> getKnownPlayerNames() {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyRead(() -> {
             List<String> names = new ArrayList<>();
 
-            try (Connection conn = getConnection()) {
-                String sql = "SELECT DISTINCT player_name FROM punishments ORDER BY player_name";
+            try {
+                StatementCache statements = readStatements();
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    try (ResultSet rs = stmt.executeQuery()) {
-                        while (rs.next()) {
-                            names.add(rs.getString("player_name"));
-                        }
+                PreparedStatement stmt = statements.prepare(PlayerTable.KNOWN_NAMES_SQL);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        names.add(rs.getString("name"));
                     }
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get known player names: " + e.getMessage());
+                logger.warning("Failed to get known player names: " + e.getMessage());
             }
 
             return names;
-        }, executor);
+        });
     }
 
     @Override
     public CompletableFuture<List<Punishment>> getPunishmentsByIP(String ipAddress) {
-        return CompletableFuture.supplyAsync(() -> {
+        return supplyRead(() -> {
             List<Punishment> punishments = new ArrayList<>();
 
-            try (Connection conn = getConnection()) {
+            try {
+                StatementCache statements = readStatements();
                 String sql = """
-                        SELECT player_uuid, player_name, ip_address, type, reason, operator, created_at, expires_at, active
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
                         FROM punishments
                         WHERE ip_address = ? AND active = 1
                         """;
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, ipAddress);
-                    try (ResultSet rs = stmt.executeQuery()) {
+                PreparedStatement stmt = statements.prepare(sql);
+                codec.setIp(stmt, 1, ipAddress);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        punishments.add(resultSetToPunishment(rs));
+                    }
+                }
+            } catch (SQLException e) {
+                logger.warning("Failed to get punishments by IP: " + e.getMessage());
+            }
+
+            return punishments;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Punishment>> expireDue(long now) {
+        return CompletableFuture.supplyAsync(() -> {
+            writeQueue.flush();
+
+            List<Punishment> expired = new ArrayList<>();
+            Connection conn = writeStatements.connection();
+
+            try {
+                String selectSql = """
+                        SELECT id, player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active
+                        FROM punishments
+                        WHERE active = 1 AND expires_at BETWEEN 0 AND ?
+                        """;
+                String updateSql = "UPDATE punishments SET active = 0, updated_at = ? WHERE active = 1 AND expires_at BETWEEN 0 AND ?";
+
+                conn.setAutoCommit(false);
+                try {
+                    PreparedStatement select = writeStatements.prepare(selectSql);
+                    select.setLong(1, now);
+                    try (ResultSet rs = select.executeQuery()) {
                         while (rs.next()) {
-                            punishments.add(resultSetToPunishment(rs));
+                            Punishment punishment = resultSetToPunishment(rs);
+                            punishment.setActive(false);
+                            expired.add(punishment);
                         }
                     }
+
+                    if (!expired.isEmpty()) {
+                        PreparedStatement update = writeStatements.prepare(updateSql);
+                        update.setLong(1, System.currentTimeMillis());
+                        update.setLong(2, now);
+                        update.executeUpdate();
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    expired.clear();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
                 }
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to get punishments by IP: " + e.getMessage());
+                logger.warning("Failed to expire punishments: " + e.getMessage());
             }
 
-            return punishments;
+            return expired;
         }, executor);
     }
 
     @Override
     public CompletableFuture<Void> deletePunishment(UUID playerUUID, int punishmentIndex) {
         return CompletableFuture.runAsync(() -> {
-            try (Connection conn = getConnection()) {
+            writeQueue.flush();
+
+            try {
+                StatementCache statements = writeStatements;
                 String sql = """
                         UPDATE punishments
-                        SET active = 0
+                        SET active = 0, updated_at = ?
                         WHERE player_uuid = ?
                         LIMIT 1
                         """;
 
-                try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-                    stmt.setString(1, playerUUID.toString());
-                    stmt.executeUpdate();
-                }
+                PreparedStatement stmt = statements.prepare(sql);
+                stmt.setLong(1, System.currentTimeMillis());
+                codec.setUUID(stmt, 2, playerUUID);
+                stmt.executeUpdate();
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to delete punishment: " + e.getMessage());
+                logger.warning("Failed to delete punishment: " + e.getMessage());
             }
         }, executor);
     }
@@ -294,22 +730,37 @@ public class SqliteStorage implements StorageManager {
     @Override
     public CompletableFuture<Void> clearAll() {
         return CompletableFuture.runAsync(() -> {
-            try (Connection conn = getConnection()) {
+            writeQueue.flush();
+
+            try {
+                StatementCache statements = writeStatements;
                 String sql = "DELETE FROM punishments";
-                try (Statement stmt = conn.createStatement()) {
-                    stmt.executeUpdate(sql);
-                }
+                PreparedStatement stmt = statements.prepare(sql);
+                stmt.executeUpdate();
             } catch (SQLException e) {
-                plugin.getLogger().warning("Failed to clear all data: " + e.getMessage());
+                logger.warning("Failed to clear all data: " + e.getMessage());
             }
         }, executor);
     }
 
+    private class WriterConnectionSource implements WriteBehindQueue.ConnectionSource {
+
+        @Override
+        public StatementCache acquire() {
+            return writeStatements;
+        }
+
+        @Override
+        public void release(StatementCache statements) {
+        }
+    }
+
     private Punishment resultSetToPunishment(ResultSet rs) throws SQLException {
         return new Punishment(
-                UUID.fromString(rs.getString("player_uuid")),
+                rs.getLong("id"),
+                codec.getUUID(rs, "player_uuid"),
                 rs.getString("player_name"),
-                rs.getString("ip_address"),
+                codec.getIpRange(rs, "ip_address", "ip_prefix"),
                 PunishmentType.valueOf(rs.getString("type")),
                 rs.getString("reason"),
                 rs.getString("operator"),
@@ -0,0 +1,97 @@
+package dev.insanmiy.trueban.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * SQLite cannot alter column types or constraints in place, so schema changes of that kind rebuild the table:
+ * create the new shape under a temporary name, copy rows across in id-ordered batches, then swap the tables.
+ * Runs inside the caller's migration transaction.
+ */
+final class SqliteTableRebuild {
+
+    @FunctionalInterface
+    interface RowCopier {
+        void copy(ResultSet source, PreparedStatement target) throws SQLException;
+    }
+
+    private final String table;
+    private final String createSql;
+    private final String selectColumns;
+    private final String insertSql;
+    private final RowCopier copier;
+    private final List<String> indexSql;
+    private final int batchSize;
+
+    /**
+     * @param createSql create statement for the new table with {@code %s} in place of the table name
+     * @param insertSql insert statement into the new table with {@code %s} in place of the table name
+     * @param indexSql  index statements to run after the swap
+     */
+    SqliteTableRebuild(String table, String createSql, String selectColumns, String insertSql,
+                       RowCopier copier, List<String> indexSql, int batchSize) {
+        this.table = table;
+        this.createSql = createSql;
+        this.selectColumns = selectColumns;
+        this.insertSql = insertSql;
+        this.copier = copier;
+        this.indexSql = indexSql;
+        this.batchSize = batchSize;
+    }
+
+    void run(Connection conn, Logger logger) throws SQLException {
+        String newTable = table + "_rebuild";
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + newTable);
+            stmt.execute(createSql.formatted(newTable));
+        }
+
+        String selectSql = "SELECT id, " + selectColumns + " FROM " + table + " WHERE id > ? ORDER BY id LIMIT ?";
+        long lastId = 0;
+        long copied = 0;
+
+        try (PreparedStatement select = conn.prepareStatement(selectSql);
+             PreparedStatement insert = conn.prepareStatement(insertSql.formatted(newTable))) {
+            while (true) {
+                select.setLong(1, lastId);
+                select.setInt(2, batchSize);
+
+                int rows = 0;
+                try (ResultSet rs = select.executeQuery()) {
+                    while (rs.next()) {
+                        lastId = rs.getLong("id");
+                        copier.copy(rs, insert);
+                        insert.addBatch();
+                        rows++;
+                    }
+                }
+
+                if (rows == 0) {
+                    break;
+                }
+
+                insert.executeBatch();
+                copied += rows;
+                if (copied % (batchSize * 50L) < rows) {
+                    logger.info("Rebuilding " + table + ": copied " + copied + " rows");
+                }
+            }
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE " + table);
+            stmt.execute("ALTER TABLE " + newTable + " RENAME TO " + table);
+            for (String index : indexSql) {
+                stmt.execute(index);
+            }
+        }
+
+        logger.info("Rebuilt " + table + " (" + copied + " rows)");
+    }
+}
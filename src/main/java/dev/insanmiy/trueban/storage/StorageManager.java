@@ -10,22 +10,38 @@ public interface StorageManager {
 
     boolean isReady();
 
+    StorageMetrics getMetrics();
+
     void close();
 
     CompletableFuture<Void> savePunishment(Punishment punishment);
 
     CompletableFuture<Void> updatePunishment(Punishment punishment);
 
+    CompletableFuture<Void> updatePunishments(List<Punishment> punishments);
+
     CompletableFuture<List<Punishment>> getActivePunishments(UUID playerUUID);
 
+    CompletableFuture<List<Punishment>> getAllActivePunishments();
+
+    CompletableFuture<List<Punishment>> getPunishmentsUpdatedSince(long since);
+
     CompletableFuture<List<Punishment>> getPunishmentHistory(UUID playerUUID);
 
+    CompletableFuture<List<Punishment>> getPunishmentHistoryPage(UUID playerUUID, HistoryCursor after, int limit);
+
+    CompletableFuture<HistoryCursor> getHistoryCursor(UUID playerUUID, long offset);
+
+    CompletableFuture<Void> recordPlayer(UUID playerUUID, String playerName, String ipAddress, long seenAt);
+
     CompletableFuture<UUID> getOfflineUUID(String playerName);
 
     CompletableFuture<List<String>> getKnownPlayerNames();
 
     CompletableFuture<List<Punishment>> getPunishmentsByIP(String ipAddress);
 
+    CompletableFuture<List<Punishment>> expireDue(long now);
+
     CompletableFuture<Void> deletePunishment(UUID playerUUID, int punishmentIndex);
 
     CompletableFuture<Void> clearAll();
@@ -0,0 +1,225 @@
+package dev.insanmiy.trueban.storage;
+
+import dev.insanmiy.trueban.util.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Per-operation call counts and latency histograms for one storage backend, plus gauges for its executors.
+ * Counters only grow, as Prometheus expects; views over an interval subtract an earlier {@link #snapshot()}.
+ * <p>
+ * Total latency is recorded by {@link InstrumentedStorage} from call to completion. Queue wait and execution
+ * time are recorded by the backend's {@link InstrumentedExecutor}s, which attribute each task to the operation
+ * whose call submitted it.
+ */
+public final class StorageMetrics {
+
+    private static final ThreadLocal<StorageOperation> CURRENT = new ThreadLocal<>();
+
+    public record ExecutorStats(String name, int queued, int active, long completed) {
+    }
+
+    public static final class OperationStats {
+
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram total;
+        private final LatencyHistogram queueWait;
+        private final LatencyHistogram execution;
+
+        private OperationStats() {
+            this(0, 0, new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram());
+        }
+
+        private OperationStats(long calls, long errors, LatencyHistogram total, LatencyHistogram queueWait,
+                               LatencyHistogram execution) {
+            this.calls.add(calls);
+            this.errors.add(errors);
+            this.total = total;
+            this.queueWait = queueWait;
+            this.execution = execution;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public LatencyHistogram getTotal() {
+            return total;
+        }
+
+        public LatencyHistogram getQueueWait() {
+            return queueWait;
+        }
+
+        public LatencyHistogram getExecution() {
+            return execution;
+        }
+
+        private OperationStats snapshot() {
+            return new OperationStats(getCalls(), getErrors(), total.snapshot(), queueWait.snapshot(), execution.snapshot());
+        }
+
+        private OperationStats since(OperationStats baseline) {
+            return new OperationStats(getCalls() - baseline.getCalls(), getErrors() - baseline.getErrors(),
+                    total.since(baseline.total), queueWait.since(baseline.queueWait), execution.since(baseline.execution));
+        }
+    }
+
+    /**
+     * Per-operation stats frozen at {@link #getTakenAt()}.
+     */
+    public static final class Snapshot {
+
+        private final long takenAt;
+        private final Map<StorageOperation, OperationStats> operations;
+
+        private Snapshot(long takenAt, Map<StorageOperation, OperationStats> operations) {
+            this.takenAt = takenAt;
+            this.operations = operations;
+        }
+
+        public long getTakenAt() {
+            return takenAt;
+        }
+
+        public Map<StorageOperation, OperationStats> getOperations() {
+            return Collections.unmodifiableMap(operations);
+        }
+
+        /**
+         * The activity between {@code baseline}, an earlier snapshot, and this one.
+         */
+        public Snapshot since(Snapshot baseline) {
+            Map<StorageOperation, OperationStats> delta = new EnumMap<>(StorageOperation.class);
+            operations.forEach((operation, stats) -> delta.put(operation, stats.since(baseline.operations.get(operation))));
+            return new Snapshot(takenAt, delta);
+        }
+    }
+
+    private final Map<StorageOperation, OperationStats> operations = new EnumMap<>(StorageOperation.class);
+    private final List<InstrumentedExecutor> executors = new CopyOnWriteArrayList<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile IntSupplier pendingWrites = () -> 0;
+    private final long since = System.currentTimeMillis();
+
+    public StorageMetrics() {
+        for (StorageOperation operation : StorageOperation.values()) {
+            operations.put(operation, new OperationStats());
+        }
+    }
+
+    static StorageOperation currentOperation() {
+        StorageOperation operation = CURRENT.get();
+        return operation != null ? operation : StorageOperation.BACKGROUND;
+    }
+
+    // Returns the previous operation, to be handed back to restoreOperation
+    static StorageOperation enterOperation(StorageOperation operation) {
+        StorageOperation previous = CURRENT.get();
+        CURRENT.set(operation);
+        return previous;
+    }
+
+    static void restoreOperation(StorageOperation previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void callStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void callCompleted(StorageOperation operation, long nanos, boolean failed) {
+        inFlight.decrementAndGet();
+        OperationStats stats = operations.get(operation);
+        stats.calls.increment();
+        if (failed) {
+            stats.errors.increment();
+        }
+        stats.total.record(nanos);
+    }
+
+    void taskCompleted(StorageOperation operation, long waitNanos, long executionNanos) {
+        OperationStats stats = operations.get(operation);
+        stats.queueWait.record(waitNanos);
+        stats.execution.record(executionNanos);
+    }
+
+    void register(InstrumentedExecutor executor) {
+        executors.add(executor);
+    }
+
+    void setPendingWrites(IntSupplier pendingWrites) {
+        this.pendingWrites = pendingWrites;
+    }
+
+    public OperationStats get(StorageOperation operation) {
+        return operations.get(operation);
+    }
+
+    public Map<StorageOperation, OperationStats> getOperations() {
+        return Collections.unmodifiableMap(operations);
+    }
+
+    /**
+     * Calls that have been made but whose futures have not completed yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Writes accepted by the write-behind queue that have not been flushed yet.
+     */
+    public int getPendingWrites() {
+        return pendingWrites.getAsInt();
+    }
+
+    public List<ExecutorStats> getExecutorStats() {
+        List<ExecutorStats> stats = new ArrayList<>(executors.size());
+        for (InstrumentedExecutor executor : executors) {
+            stats.add(new ExecutorStats(executor.getName(), executor.getQueue().size(), executor.getActiveCount(),
+                    executor.getCompletedTaskCount()));
+        }
+        return stats;
+    }
+
+    /**
+     * When the metrics were created.
+     */
+    public long getSince() {
+        return since;
+    }
+
+    public Snapshot snapshot() {
+        Map<StorageOperation, OperationStats> copy = new EnumMap<>(StorageOperation.class);
+        operations.forEach((operation, stats) -> copy.put(operation, stats.snapshot()));
+        return new Snapshot(System.currentTimeMillis(), copy);
+    }
+
+    /**
+     * Formats p50/p95/p99/max of {@code histogram} in milliseconds, e.g. {@code 0.41/1.20/3.05/12.90}.
+     */
+    public static String formatMillis(LatencyHistogram histogram) {
+        long[] percentiles = histogram.getPercentilesNanos(50, 95, 99);
+        return String.format(Locale.ROOT, "%.2f/%.2f/%.2f/%.2f",
+                percentiles[0] / 1e6, percentiles[1] / 1e6, percentiles[2] / 1e6, histogram.getMaxNanos() / 1e6);
+    }
+}
@@ -0,0 +1,36 @@
+package dev.insanmiy.trueban.storage;
+
+import java.util.Locale;
+
+/**
+ * The {@link StorageManager} calls tracked by {@link StorageMetrics}. {@link #BACKGROUND} covers executor work
+ * that no call started, such as timed write flushes.
+ */
+public enum StorageOperation {
+    SAVE_PUNISHMENT,
+    UPDATE_PUNISHMENT,
+    UPDATE_PUNISHMENTS,
+    GET_ACTIVE_PUNISHMENTS,
+    GET_ALL_ACTIVE_PUNISHMENTS,
+    GET_PUNISHMENTS_UPDATED_SINCE,
+    GET_PUNISHMENT_HISTORY,
+    GET_PUNISHMENT_HISTORY_PAGE,
+    GET_HISTORY_CURSOR,
+    RECORD_PLAYER,
+    GET_OFFLINE_UUID,
+    GET_KNOWN_PLAYER_NAMES,
+    GET_PUNISHMENTS_BY_IP,
+    EXPIRE_DUE,
+    DELETE_PUNISHMENT,
+    CLEAR_ALL,
+    BACKGROUND;
+
+    private final String key = name().toLowerCase(Locale.ROOT).replace('_', '-');
+
+    /**
+     * Lowercase, dash-separated name used in stats output, e.g. {@code get-punishment-history-page}.
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,307 @@
+package dev.insanmiy.trueban.storage;
+
+import dev.insanmiy.trueban.punishment.Punishment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Coalesces punishment inserts and updates into JDBC batches that are committed in a single transaction
+ * per flush window. A window closes when it holds {@code maxBatchSize} writes or {@code flushIntervalMillis}
+ * after its first write, whichever comes first. Each caller still gets its own completion future.
+ * <p>
+ * Flushes run on the owning storage executor, so {@link #flush()} must only be called from that thread.
+ */
+class WriteBehindQueue {
+
+    interface ConnectionSource {
+        StatementCache acquire() throws SQLException;
+
+        void release(StatementCache statements);
+    }
+
+    private static final String INSERT_SQL = """
+            INSERT INTO punishments (player_uuid, player_name, ip_address, ip_prefix, type, reason, operator, created_at, expires_at, active, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_SQL = """
+            UPDATE punishments
+            SET active = ?, updated_at = ?
+            WHERE player_uuid = ? AND created_at = ?
+            """;
+
+    private enum Kind { INSERT, UPDATE }
+
+    private record PendingWrite(Kind kind, Punishment punishment, CompletableFuture<Void> future) {
+    }
+
+    private final Logger logger;
+    private final ConnectionSource connections;
+    private final ColumnCodec codec;
+    private final ScheduledExecutorService executor;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+
+    private final Object lock = new Object();
+    private List<PendingWrite> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean flushRequested;
+    private boolean closed;
+
+    WriteBehindQueue(Logger logger, ConnectionSource connections, ColumnCodec codec, ScheduledExecutorService executor,
+                     int maxBatchSize, long flushIntervalMillis) {
+        this.logger = logger;
+        this.connections = connections;
+        this.codec = codec;
+        this.executor = executor;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.flushIntervalMillis = Math.max(0, flushIntervalMillis);
+    }
+
+    CompletableFuture<Void> enqueueInsert(Punishment punishment) {
+        return enqueue(List.of(punishment), Kind.INSERT);
+    }
+
+    CompletableFuture<Void> enqueueUpdate(Punishment punishment) {
+        return enqueue(List.of(punishment), Kind.UPDATE);
+    }
+
+    CompletableFuture<Void> enqueueUpdates(List<Punishment> punishments) {
+        return enqueue(punishments, Kind.UPDATE);
+    }
+
+    private CompletableFuture<Void> enqueue(List<Punishment> punishments, Kind kind) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(punishments.size());
+
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Storage is closed"));
+            }
+
+            for (Punishment punishment : punishments) {
+                PendingWrite write = new PendingWrite(kind, punishment, new CompletableFuture<>());
+                pending.add(write);
+                futures.add(write.future());
+            }
+
+            if (pending.size() >= maxBatchSize) {
+                requestFlush();
+            } else if (scheduledFlush == null && !flushRequested) {
+                scheduledFlush = executor.schedule(this::flush, flushIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return futures.size() == 1 ? futures.get(0) : CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+    }
+
+    // Caller must hold lock
+    private void requestFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (!flushRequested) {
+            flushRequested = true;
+            executor.execute(this::flush);
+        }
+    }
+
+    boolean hasPending() {
+        synchronized (lock) {
+            return !pending.isEmpty();
+        }
+    }
+
+    int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    CompletableFuture<Void> flushAsync() {
+        return CompletableFuture.runAsync(this::flush, executor);
+    }
+
+    void flush() {
+        List<PendingWrite> batch;
+        synchronized (lock) {
+            flushRequested = false;
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+
+        for (int from = 0; from < batch.size(); from += maxBatchSize) {
+            writeBatch(batch.subList(from, Math.min(batch.size(), from + maxBatchSize)));
+        }
+    }
+
+    void close(long timeoutMillis) {
+        synchronized (lock) {
+            closed = true;
+        }
+
+        try {
+            executor.submit(this::flush).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.warning("Failed to flush pending punishment writes on shutdown: " + e.getMessage());
+        }
+    }
+
+    private void writeBatch(List<PendingWrite> batch) {
+        List<PendingWrite> inserts = new ArrayList<>();
+        Map<String, PendingWrite> updates = new LinkedHashMap<>();
+        List<PendingWrite> coalesced = new ArrayList<>();
+
+        for (PendingWrite write : batch) {
+            if (write.kind() == Kind.INSERT) {
+                inserts.add(write);
+            } else {
+                // Updates only carry the current active flag, so repeated updates of one row collapse to one statement
+                PendingWrite previous = updates.put(rowKey(write.punishment()), write);
+                if (previous != null) {
+                    coalesced.add(previous);
+                }
+            }
+        }
+
+        StatementCache statements;
+        try {
+            statements = connections.acquire();
+        } catch (SQLException e) {
+            failAll(batch, e);
+            return;
+        }
+
+        try {
+            Connection conn = statements.connection();
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+
+            try {
+                executeBatch(statements, inserts, updates.values());
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+                logger.warning("Batched punishment write failed, retrying individually: " + e.getMessage());
+                writeIndividually(statements, batch);
+                return;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            failAll(batch, e);
+            return;
+        } finally {
+            connections.release(statements);
+        }
+
+        for (PendingWrite write : inserts) {
+            write.future().complete(null);
+        }
+        for (PendingWrite write : updates.values()) {
+            write.future().complete(null);
+        }
+        for (PendingWrite write : coalesced) {
+            write.future().complete(null);
+        }
+    }
+
+    private void executeBatch(StatementCache statements, List<PendingWrite> inserts, Iterable<PendingWrite> updates) throws SQLException {
+        if (!inserts.isEmpty()) {
+            PreparedStatement stmt = statements.prepare(INSERT_SQL);
+            try {
+                for (PendingWrite write : inserts) {
+                    bindInsert(stmt, write.punishment());
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+            } finally {
+                stmt.clearBatch();
+            }
+        }
+
+        PreparedStatement stmt = statements.prepare(UPDATE_SQL);
+        try {
+            boolean any = false;
+            for (PendingWrite write : updates) {
+                bindUpdate(stmt, write.punishment());
+                stmt.addBatch();
+                any = true;
+            }
+            if (any) {
+                stmt.executeBatch();
+            }
+        } finally {
+            stmt.clearBatch();
+        }
+    }
+
+    private void writeIndividually(StatementCache statements, List<PendingWrite> batch) {
+        for (PendingWrite write : batch) {
+            String sql = write.kind() == Kind.INSERT ? INSERT_SQL : UPDATE_SQL;
+            try {
+                PreparedStatement stmt = statements.prepare(sql);
+                if (write.kind() == Kind.INSERT) {
+                    bindInsert(stmt, write.punishment());
+                } else {
+                    bindUpdate(stmt, write.punishment());
+                }
+                stmt.executeUpdate();
+                write.future().complete(null);
+            } catch (SQLException e) {
+                logger.warning("Failed to " + (write.kind() == Kind.INSERT ? "save" : "update") + " punishment: " + e.getMessage());
+                write.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void failAll(List<PendingWrite> batch, SQLException e) {
+        logger.warning("Failed to write " + batch.size() + " punishments: " + e.getMessage());
+        for (PendingWrite write : batch) {
+            write.future().completeExceptionally(e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement stmt, Punishment punishment) throws SQLException {
+        codec.setUUID(stmt, 1, punishment.getPlayerUUID());
+        stmt.setString(2, punishment.getPlayerName());
+        codec.setIpRange(stmt, 3, 4, punishment.getIpAddress());
+        stmt.setString(5, punishment.getType().toString());
+        stmt.setString(6, punishment.getReason());
+        stmt.setString(7, punishment.getOperator());
+        stmt.setLong(8, punishment.getCreatedAt());
+        stmt.setLong(9, punishment.getExpiresAt());
+        stmt.setBoolean(10, punishment.isActive());
+        stmt.setLong(11, System.currentTimeMillis());
+    }
+
+    private void bindUpdate(PreparedStatement stmt, Punishment punishment) throws SQLException {
+        stmt.setBoolean(1, punishment.isActive());
+        stmt.setLong(2, System.currentTimeMillis());
+        codec.setUUID(stmt, 3, punishment.getPlayerUUID());
+        stmt.setLong(4, punishment.getCreatedAt());
+    }
+
+    private static String rowKey(Punishment punishment) {
+        return punishment.getPlayerUUID() + ":" + punishment.getCreatedAt();
+    }
+}
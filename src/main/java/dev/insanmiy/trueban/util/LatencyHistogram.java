@@ -0,0 +1,174 @@
+package dev.insanmiy.trueban.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size, lock-free histogram of nanosecond latencies. Values are kept in log-linear buckets of 32 per
+ * power of two, so percentiles are accurate to about 3% at any magnitude while recording stays a single
+ * atomic increment.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_COUNT = SUB_COUNT >> 1;
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BITS + 1) * HALF_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    public double getMeanNanos() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) total.sum() / n;
+    }
+
+    public long getTotalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Returns the latency at {@code percentile} (0-100), or 0 if nothing has been recorded.
+     */
+    public long getPercentileNanos(double percentile) {
+        return getPercentilesNanos(percentile)[0];
+    }
+
+    /**
+     * Returns the latency at each of {@code percentiles} (0-100, ascending) from a single pass over the buckets.
+     */
+    public long[] getPercentilesNanos(double... percentiles) {
+        long[] counts = new long[BUCKET_COUNT];
+        long n = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            n += counts[i];
+        }
+
+        long[] results = new long[percentiles.length];
+        if (n == 0) {
+            return results;
+        }
+
+        long maxNanos = max.get();
+        long seen = 0;
+        int bucket = -1;
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentiles[p])) / 100));
+            while (seen < rank && bucket < BUCKET_COUNT - 1) {
+                seen += counts[++bucket];
+            }
+            results[p] = seen >= rank ? Math.min(bucketMidpoint(bucket), maxNanos) : maxNanos;
+        }
+        return results;
+    }
+
+    /**
+     * Returns how many values fell at or below each of {@code boundsNanos} (ascending), followed by the total
+     * count, from a single pass over the buckets. A bucket counts towards a bound only once its whole range is
+     * within it, so counts may trail a bound by one bucket width (about 3%).
+     */
+    public long[] getCumulativeCounts(long... boundsNanos) {
+        long[] results = new long[boundsNanos.length + 1];
+        long seen = 0;
+        int bound = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long n = buckets.get(i);
+            if (n == 0) {
+                continue;
+            }
+            long high = bucketHigh(i);
+            while (bound < boundsNanos.length && high > boundsNanos[bound]) {
+                results[bound++] = seen;
+            }
+            seen += n;
+        }
+        while (bound < boundsNanos.length) {
+            results[bound++] = seen;
+        }
+        results[boundsNanos.length] = seen;
+        return results;
+    }
+
+    /**
+     * Returns a copy of the current state. Values recorded while copying may or may not be included.
+     */
+    public LatencyHistogram snapshot() {
+        LatencyHistogram copy = new LatencyHistogram();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy.buckets.set(i, buckets.get(i));
+        }
+        copy.count.add(count.sum());
+        copy.total.add(total.sum());
+        copy.max.set(max.get());
+        return copy;
+    }
+
+    /**
+     * Returns the values recorded after {@code baseline}, an earlier snapshot of this histogram. The maximum is
+     * bounded by the highest bucket that grew, so it may overstate the true maximum by one bucket width.
+     */
+    public LatencyHistogram since(LatencyHistogram baseline) {
+        LatencyHistogram delta = new LatencyHistogram();
+        int highest = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long n = buckets.get(i) - baseline.buckets.get(i);
+            if (n > 0) {
+                delta.buckets.set(i, n);
+                highest = i;
+            }
+        }
+        delta.count.add(Math.max(0, count.sum() - baseline.count.sum()));
+        delta.total.add(Math.max(0, total.sum() - baseline.total.sum()));
+        delta.max.set(highest < 0 ? 0 : Math.min(max.get(), bucketHigh(highest)));
+        return delta;
+    }
+
+    // Values below SUB_COUNT get a bucket each; above that, the top SUB_BITS bits select one of HALF_COUNT buckets
+    private static int bucketOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+        return shift * HALF_COUNT + (int) (value >>> shift);
+    }
+
+    private static long bucketHigh(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / HALF_COUNT - 1;
+        long low = (long) (bucket % HALF_COUNT + HALF_COUNT) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    private static long bucketMidpoint(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = bucket / HALF_COUNT - 1;
+        long low = (long) (bucket % HALF_COUNT + HALF_COUNT) << shift;
+        return low + ((1L << shift) >> 1);
+    }
+}
@@ -0,0 +1,280 @@
+package dev.insanmiy.trueban.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Case-insensitive, path-compressed radix trie of strings for prefix completion. A lookup walks only the
+ * characters of the prefix and then visits just the matches it returns, independent of how many strings are stored.
+ * Each string is kept in the casing it was last added with.
+ */
+public class PrefixTrie {
+
+    private static final class Node {
+        String label;
+        char[] keys = new char[0];
+        Node[] children = new Node[0];
+        String value;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        int indexOf(char c) {
+            return Arrays.binarySearch(keys, c);
+        }
+
+        void addChild(Node child) {
+            int index = -(indexOf(child.label.charAt(0)) + 1);
+            keys = insert(keys, index, child.label.charAt(0));
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            char[] shrunkKeys = new char[keys.length - 1];
+            System.arraycopy(keys, 0, shrunkKeys, 0, index);
+            System.arraycopy(keys, index + 1, shrunkKeys, index, keys.length - index - 1);
+            keys = shrunkKeys;
+
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        private static char[] insert(char[] array, int index, char c) {
+            char[] grown = new char[array.length + 1];
+            System.arraycopy(array, 0, grown, 0, index);
+            grown[index] = c;
+            System.arraycopy(array, index, grown, index + 1, array.length - index);
+            return grown;
+        }
+    }
+
+    private final Node root = new Node("");
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private int size;
+
+    public void add(String value) {
+        String key = key(value);
+        if (key.isEmpty()) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (true) {
+                if (pos == key.length()) {
+                    if (node.value == null) {
+                        size++;
+                    }
+                    node.value = value;
+                    return;
+                }
+
+                int index = node.indexOf(key.charAt(pos));
+                if (index < 0) {
+                    Node leaf = new Node(key.substring(pos));
+                    leaf.value = value;
+                    node.addChild(leaf);
+                    size++;
+                    return;
+                }
+
+                Node child = node.children[index];
+                int common = commonPrefix(child.label, key, pos);
+                if (common < child.label.length()) {
+                    // Split the edge so the shared part becomes its own node
+                    Node middle = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    middle.addChild(child);
+                    node.children[index] = middle;
+                    child = middle;
+                }
+                node = child;
+                pos += common;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean remove(String value) {
+        String key = key(value);
+        if (key.isEmpty()) {
+            return false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            return remove(root, key, 0);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean remove(Node node, String key, int pos) {
+        int index = node.indexOf(key.charAt(pos));
+        if (index < 0) {
+            return false;
+        }
+
+        Node child = node.children[index];
+        if (!key.startsWith(child.label, pos)) {
+            return false;
+        }
+
+        int next = pos + child.label.length();
+        boolean removed;
+        if (next == key.length()) {
+            removed = child.value != null;
+            child.value = null;
+            if (removed) {
+                size--;
+            }
+        } else {
+            removed = remove(child, key, next);
+        }
+
+        if (removed && child.value == null) {
+            if (child.children.length == 0) {
+                node.removeChild(index);
+            } else if (child.children.length == 1) {
+                Node only = child.children[0];
+                only.label = child.label + only.label;
+                node.children[index] = only;
+            }
+        }
+        return removed;
+    }
+
+    public boolean contains(String value) {
+        String key = key(value);
+        lock.readLock().lock();
+        try {
+            Node node = find(key);
+            return node != null && node.value != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} stored strings starting with {@code prefix}, in case-insensitive order.
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = key(prefix);
+        List<String> matches = new ArrayList<>(Math.min(limit, 16));
+
+        lock.readLock().lock();
+        try {
+            Node node = key.isEmpty() ? root : findSubtree(key);
+            if (node != null) {
+                collect(node, matches, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            root.keys = new char[0];
+            root.children = new Node[0];
+            root.value = null;
+            size = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Node find(String key) {
+        Node node = root;
+        int pos = 0;
+        while (pos < key.length()) {
+            int index = node.indexOf(key.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            if (!key.startsWith(child.label, pos)) {
+                return null;
+            }
+            node = child;
+            pos += child.label.length();
+        }
+        return node;
+    }
+
+    // Returns the node whose subtree holds every key starting with prefix; the prefix may end mid-edge
+    private Node findSubtree(String prefix) {
+        Node node = root;
+        int pos = 0;
+        while (pos < prefix.length()) {
+            int index = node.indexOf(prefix.charAt(pos));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, prefix, pos);
+            if (pos + common == prefix.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            pos += common;
+        }
+        return node;
+    }
+
+    private static void collect(Node node, List<String> matches, int limit) {
+        if (matches.size() >= limit) {
+            return;
+        }
+        if (node.value != null) {
+            matches.add(node.value);
+        }
+        for (Node child : node.children) {
+            if (matches.size() >= limit) {
+                return;
+            }
+            collect(child, matches, limit);
+        }
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String key(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,44 @@
+package dev.insanmiy.trueban.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key: while a load is in flight, later callers share its result
+ * instead of starting their own. The entry is dropped as soon as the load completes, so nothing is cached.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        try {
+            loader.get().whenComplete((value, ex) -> {
+                inFlight.remove(key, created);
+                if (ex != null) {
+                    created.completeExceptionally(ex);
+                } else {
+                    created.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+
+        // Callers get a dependent copy so one of them completing or cancelling it cannot affect the others
+        return created.copy();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}